@@ -0,0 +1,90 @@
+package com.ethan.voxyworldgenv2.core;
+
+import java.util.function.Supplier;
+
+/**
+ * retained heap per completed chunk of the distance graph and its baseline, run with gradlew footprint.
+ * a disk is a pregenerated area whose subtrees collapse, scattered marks every other chunk by hash
+ * so nothing collapses and every l1 node stays partial, the worst case
+ */
+public final class DistanceGraphFootprint {
+    private static final int[] CHUNKS = {1_000_000, 10_000_000};
+
+    // keeps the graph under measurement reachable
+    private static Object retained;
+
+    private interface Marker {
+        void mark(int cx, int cz);
+    }
+
+    private DistanceGraphFootprint() {}
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %-10s %14s %14s%n", "layout", "chunks", "baseline B/ch", "current B/ch");
+        for (int chunks : CHUNKS) {
+            for (String layout : new String[]{"disk", "scattered"}) {
+                double baseline = measure(chunks, layout, () -> {
+                    BaselineDistanceGraph graph = new BaselineDistanceGraph();
+                    retained = graph;
+                    return graph::markChunkCompleted;
+                });
+                double current = measure(chunks, layout, () -> {
+                    DistanceGraph graph = new DistanceGraph();
+                    retained = graph;
+                    return graph::markChunkCompleted;
+                });
+                System.out.printf("%-10s %-10d %14.3f %14.3f%n", layout, chunks, baseline, current);
+            }
+        }
+    }
+
+    private static double measure(int chunks, String layout, Supplier<Marker> create) {
+        long before = usedAfterGc();
+        Marker marker = create.get();
+        if (layout.equals("disk")) {
+            int radius = (int) Math.ceil(Math.sqrt(chunks / Math.PI));
+            int marked = 0;
+            for (int x = -radius; x <= radius && marked < chunks; x++) {
+                for (int z = -radius; z <= radius && marked < chunks; z++) {
+                    if (x * x + z * z > radius * radius) continue;
+                    marker.mark(x, z);
+                    marked++;
+                }
+            }
+        } else {
+            int side = (int) Math.ceil(Math.sqrt(chunks * 2.0));
+            int marked = 0;
+            for (int x = 0; x < side && marked < chunks; x++) {
+                for (int z = 0; z < side && marked < chunks; z++) {
+                    if ((mix(x, z) & 1) != 0) continue;
+                    marker.mark(x - side / 2, z - side / 2);
+                    marked++;
+                }
+            }
+        }
+        long after = usedAfterGc();
+        retained = null;
+        return (double) (after - before) / chunks;
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // a few rounds until the number settles, one gc call is only a hint
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static int mix(int x, int z) {
+        int h = x * 0x9E3779B1 ^ z * 0x85EBCA6B;
+        return h ^ (h >>> 15);
+    }
+}
@@ -0,0 +1,77 @@
+package com.ethan.voxyworldgenv2.core;
+
+import net.minecraft.world.level.ChunkPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * time to hand out one batch in a mostly generated world, everything inside radius - band is completed
+ * and the worker keeps asking for the open batches of the outer band.
+ * once the band is drained the claims are dropped and the walk starts over, as after a rescan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FindWorkBenchmark {
+    private static final ChunkPos CENTER = new ChunkPos(100, -60);
+
+    @Param({"128", "512"})
+    public int radius;
+
+    // width in chunks of the open ring at the edge of the radius
+    @Param({"32"})
+    public int band;
+
+    private BaselineDistanceGraph baseline;
+    private DistanceGraph graph;
+    private DistanceGraph.Cursor cursor;
+    private final Set<Long> baselineClaims = new HashSet<>();
+    private final Set<Long> claims = new HashSet<>();
+
+    @Setup
+    public void setup() {
+        baseline = new BaselineDistanceGraph();
+        graph = new DistanceGraph();
+        cursor = new DistanceGraph.Cursor();
+        long inner = (long) (radius - band) * (radius - band);
+        for (int x = -radius; x <= radius; x++) {
+            for (int z = -radius; z <= radius; z++) {
+                if ((long) x * x + (long) z * z > inner) continue;
+                baseline.markChunkCompleted(CENTER.x + x, CENTER.z + z);
+                graph.markChunkCompleted(CENTER.x + x, CENTER.z + z);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ChunkPos> baseline() {
+        List<ChunkPos> batch = baseline.findWork(CENTER, radius, baselineClaims);
+        if (batch == null) {
+            baselineClaims.clear();
+            batch = baseline.findWork(CENTER, radius, baselineClaims);
+        }
+        return batch;
+    }
+
+    @Benchmark
+    public List<ChunkPos> cursor() {
+        List<ChunkPos> batch = graph.findWork(cursor, CENTER, radius, false, claims::add, 0);
+        if (batch == null) {
+            claims.clear();
+            cursor.invalidate();
+            batch = graph.findWork(cursor, CENTER, radius, false, claims::add, 0);
+        }
+        return batch;
+    }
+}
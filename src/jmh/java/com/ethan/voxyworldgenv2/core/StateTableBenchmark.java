@@ -0,0 +1,98 @@
+package com.ethan.voxyworldgenv2.core;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import net.minecraft.world.level.ChunkPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * one chunk or batch going through claim, dispatch and release on four threads at once, each thread
+ * keeps a window of its own keys live so the tables hold a steady population.
+ * the set and map variants are what the generation manager used before the state table
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class StateTableBenchmark {
+    // keys each thread keeps claimed, about what the in-flight limit allows
+    private static final int WINDOW = 512;
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        final ChunkStateTable chunkStates = new ChunkStateTable();
+        final ChunkStateTable batchStates = new ChunkStateTable();
+        final LongSet completedChunks = LongSets.synchronize(new LongOpenHashSet());
+        final LongSet trackedChunks = LongSets.synchronize(new LongOpenHashSet());
+        final Set<Long> trackedBatches = ConcurrentHashMap.newKeySet();
+        final Map<Long, AtomicInteger> batchCounters = new ConcurrentHashMap<>();
+        final AtomicInteger threads = new AtomicInteger();
+    }
+
+    @State(Scope.Thread)
+    public static class Walker {
+        private int row = -1;
+        private int next = 0;
+
+        // threads walk disjoint rows, like players far apart
+        long key(Shared shared, int i) {
+            if (row < 0) row = shared.threads.getAndIncrement() << 12;
+            return ChunkPos.asLong(i & 1023, row + (i >> 10));
+        }
+    }
+
+    @Benchmark
+    public boolean chunkTable(Shared shared, Walker walker) {
+        long key = walker.key(shared, walker.next);
+        long old = walker.key(shared, walker.next - WINDOW);
+        walker.next++;
+        boolean claimed = shared.chunkStates.tryClaim(key, ChunkStateTable.QUEUED);
+        if (claimed) shared.chunkStates.set(key, ChunkStateTable.IN_FLIGHT);
+        shared.chunkStates.compareAndSet(old, ChunkStateTable.IN_FLIGHT, ChunkStateTable.NONE);
+        return claimed;
+    }
+
+    @Benchmark
+    public boolean chunkSets(Shared shared, Walker walker) {
+        long key = walker.key(shared, walker.next);
+        long old = walker.key(shared, walker.next - WINDOW);
+        walker.next++;
+        boolean claimed = !shared.completedChunks.contains(key) && shared.trackedChunks.add(key);
+        shared.trackedChunks.remove(old);
+        return claimed;
+    }
+
+    @Benchmark
+    public boolean batchTable(Shared shared, Walker walker) {
+        long key = walker.key(shared, walker.next);
+        long old = walker.key(shared, walker.next - WINDOW);
+        walker.next++;
+        boolean claimed = shared.batchStates.tryClaim(key, ChunkStateTable.IN_FLIGHT);
+        shared.batchStates.set(old, ChunkStateTable.NONE);
+        return claimed;
+    }
+
+    @Benchmark
+    public boolean batchMaps(Shared shared, Walker walker) {
+        long key = walker.key(shared, walker.next);
+        long old = walker.key(shared, walker.next - WINDOW);
+        walker.next++;
+        boolean claimed = shared.trackedBatches.add(key);
+        if (claimed) shared.batchCounters.put(key, new AtomicInteger(16));
+        shared.trackedBatches.remove(old);
+        shared.batchCounters.remove(old);
+        return claimed;
+    }
+}
@@ -0,0 +1,151 @@
+package com.ethan.voxyworldgenv2.generation;
+
+import com.mojang.serialization.Lifecycle;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.BiomeGenerationSettings;
+import net.minecraft.world.level.biome.BiomeSpecialEffects;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.biome.MobSpawnSettings;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * builds the sections of one overworld chunk from tellus columns, hills between y 40 and 120 around
+ * a sea level of 63. run with -prof gc to compare the allocation per chunk as well
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SectionBuilderBenchmark {
+    private static final int SEA_LEVEL = 63;
+    private static final LevelHeightAccessor OVERWORLD = LevelHeightAccessor.create(-64, 384);
+
+    private Registry<Biome> biomes;
+    private final int[] heights = new int[256];
+    private final BlockState[] surface = new BlockState[256];
+    private final BlockState[] filler = new BlockState[256];
+
+    @Setup
+    public void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        Registry.register(registry, Biomes.PLAINS, new Biome.BiomeBuilder()
+                .hasPrecipitation(false)
+                .temperature(0.5f)
+                .downfall(0.5f)
+                .specialEffects(new BiomeSpecialEffects.Builder().fogColor(0).waterColor(0).waterFogColor(0).skyColor(0).build())
+                .mobSpawnSettings(MobSpawnSettings.EMPTY)
+                .generationSettings(BiomeGenerationSettings.EMPTY)
+                .build());
+        registry.freeze();
+        biomes = registry;
+
+        for (int i = 0; i < 256; i++) {
+            int x = i & 15;
+            int z = i >> 4;
+            heights[i] = 80 + (int) (Math.sin(x * 0.4) * 25 + Math.cos(z * 0.3) * 15);
+            boolean beach = heights[i] <= SEA_LEVEL + 2;
+            surface[i] = beach ? Blocks.SAND.defaultBlockState() : Blocks.GRASS_BLOCK.defaultBlockState();
+            filler[i] = beach ? Blocks.SAND.defaultBlockState() : Blocks.DIRT.defaultBlockState();
+        }
+    }
+
+    @Benchmark
+    public LevelChunkSection[] sectionBuilder() {
+        SectionBuilder.Columns columns = SectionBuilder.columns();
+        System.arraycopy(heights, 0, columns.heights, 0, 256);
+        System.arraycopy(surface, 0, columns.surface, 0, 256);
+        System.arraycopy(filler, 0, columns.filler, 0, 256);
+        return SectionBuilder.build(OVERWORLD, biomes, columns, SEA_LEVEL);
+    }
+
+    // the builder before column runs, one setBlockState per block into freshly allocated sections
+    @Benchmark
+    public LevelChunkSection[] perBlock() {
+        BlockState stone = Blocks.STONE.defaultBlockState();
+        BlockState deepslate = Blocks.DEEPSLATE.defaultBlockState();
+        BlockState water = Blocks.WATER.defaultBlockState();
+
+        int globalMinH = 256;
+        for (int h : heights) {
+            if (h < globalMinH) globalMinH = h;
+        }
+
+        LevelChunkSection[] sections = new LevelChunkSection[OVERWORLD.getSectionsCount()];
+        int minSectionY = OVERWORLD.getMinSection();
+        for (int i = 0; i < sections.length; i++) {
+            int sectionTopY = ((minSectionY + i) << 4) + 15;
+            if (sectionTopY < globalMinH - 3) {
+                BlockState fill = sectionTopY < 0 ? deepslate : stone;
+                LevelChunkSection section = new LevelChunkSection(biomes);
+                for (int by = 0; by < 16; by++)
+                    for (int bz = 0; bz < 16; bz++)
+                        for (int bx = 0; bx < 16; bx++)
+                            section.setBlockState(bx, by, bz, fill, false);
+                section.recalcBlockCounts();
+                sections[i] = section;
+            }
+        }
+
+        for (int i = 0; i < 256; i++) {
+            int z = i >> 4;
+            int x = i & 15;
+            int h = heights[i];
+            int columnTopY = Math.max(h, SEA_LEVEL);
+            for (int y = OVERWORLD.getMinBuildHeight(); y <= columnTopY; y++) {
+                int secIdx = (y >> 4) - minSectionY;
+                if (secIdx < 0 || secIdx >= sections.length) continue;
+
+                LevelChunkSection section = sections[secIdx];
+                if (section == null) {
+                    section = new LevelChunkSection(biomes);
+                    sections[secIdx] = section;
+                }
+
+                int sectionTopY = ((secIdx + minSectionY) << 4) + 15;
+                if (sectionTopY < globalMinH - 3) {
+                    y = sectionTopY;
+                    continue;
+                }
+
+                BlockState state = Blocks.AIR.defaultBlockState();
+                if (y < h - 3) {
+                    state = y < 0 ? deepslate : stone;
+                } else if (y < h) {
+                    state = filler[i];
+                } else if (y == h) {
+                    state = surface[i];
+                } else if (y <= SEA_LEVEL) {
+                    state = water;
+                }
+
+                if (!state.isAir()) {
+                    section.setBlockState(x, y & 15, z, state, false);
+                }
+            }
+        }
+
+        for (LevelChunkSection section : sections) {
+            if (section != null && !section.hasOnlyAir()) section.recalcBlockCounts();
+        }
+        return sections;
+    }
+}
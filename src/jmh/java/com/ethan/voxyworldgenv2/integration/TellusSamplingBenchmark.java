@@ -0,0 +1,178 @@
+package com.ethan.voxyworldgenv2.integration;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.ChunkPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * samples the 4096 columns of a 4x4 chunk batch from a stub elevation and cover source.
+ * the stub reads a bilinear tile like tellus does once its tile cache is warm, so the numbers show
+ * the cost around the source: per chunk handle resolution and boxing before, one exact pass now
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TellusSamplingBenchmark {
+    private static final int BATCHES = 16;
+
+    // stand-ins with the signatures the integration looks up on tellus classes
+    public static final class StubElevation {
+        private static final int TILE = 512;
+        private final float[] tile = new float[TILE * TILE];
+
+        StubElevation() {
+            for (int i = 0; i < tile.length; i++) {
+                int x = i % TILE;
+                int z = i / TILE;
+                tile[i] = (float) (Math.sin(x * 0.02) * 400 + Math.cos(z * 0.015) * 300 - 50);
+            }
+        }
+
+        public double sampleElevationMeters(double x, double z, double scale, boolean interpolate) {
+            double fx = x / scale;
+            double fz = z / scale;
+            int x0 = Mth.floor(fx);
+            int z0 = Mth.floor(fz);
+            double tx = fx - x0;
+            double tz = fz - z0;
+            return Mth.lerp2(tx, tz, at(x0, z0), at(x0 + 1, z0), at(x0, z0 + 1), at(x0 + 1, z0 + 1));
+        }
+
+        private double at(int x, int z) {
+            return tile[(x & (TILE - 1)) + (z & (TILE - 1)) * TILE];
+        }
+    }
+
+    public static final class StubCover {
+        public int sampleCoverClass(int x, int z, double scale) {
+            return ((x >> 5) ^ (z >> 5)) % 3 == 0 ? 80 : 10;
+        }
+    }
+
+    public record StubSettings(double worldScale, double terrestrialHeightScale, double oceanicHeightScale,
+                               int heightOffset, int resolveSeaLevel) {}
+
+    private final StubElevation elevation = new StubElevation();
+    private final StubCover cover = new StubCover();
+    private final StubSettings stubSettings = new StubSettings(1.0, 0.25, 0.1, 64, 63);
+
+    // unconverted handles called through invoke, as the per chunk sampler did
+    private MethodHandle baselineElevation;
+    private MethodHandle baselineCover;
+    private MethodHandle worldScale;
+    private MethodHandle terrestrialHeightScale;
+    private MethodHandle oceanicHeightScale;
+    private MethodHandle heightOffset;
+
+    private TellusIntegration.LevelSettings settings;
+    private final List<List<ChunkPos>> batches = new ArrayList<>();
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        baselineElevation = lookup.findVirtual(StubElevation.class, "sampleElevationMeters",
+                MethodType.methodType(double.class, double.class, double.class, double.class, boolean.class));
+        baselineCover = lookup.findVirtual(StubCover.class, "sampleCoverClass",
+                MethodType.methodType(int.class, int.class, int.class, double.class));
+        worldScale = lookup.findVirtual(StubSettings.class, "worldScale", MethodType.methodType(double.class));
+        terrestrialHeightScale = lookup.findVirtual(StubSettings.class, "terrestrialHeightScale", MethodType.methodType(double.class));
+        oceanicHeightScale = lookup.findVirtual(StubSettings.class, "oceanicHeightScale", MethodType.methodType(double.class));
+        heightOffset = lookup.findVirtual(StubSettings.class, "heightOffset", MethodType.methodType(int.class));
+
+        settings = new TellusIntegration.LevelSettings(
+                baselineElevation.asType(MethodType.methodType(double.class, Object.class, double.class, double.class, double.class, boolean.class)),
+                elevation,
+                baselineCover.asType(MethodType.methodType(int.class, Object.class, int.class, int.class, double.class)),
+                cover,
+                stubSettings.worldScale(), stubSettings.terrestrialHeightScale(), stubSettings.oceanicHeightScale(),
+                stubSettings.heightOffset(), stubSettings.resolveSeaLevel());
+
+        for (int b = 0; b < BATCHES; b++) {
+            List<ChunkPos> batch = new ArrayList<>(16);
+            for (int i = 0; i < 16; i++) {
+                batch.add(new ChunkPos(((b & 3) << 2) + (i & 3), ((b >> 2) << 2) + (i >> 2)));
+            }
+            batches.add(batch);
+        }
+    }
+
+    @Benchmark
+    public void perChunk(Blackhole sink) throws Throwable {
+        for (ChunkPos pos : batches.get(0)) {
+            sink.consume(sampleChunk(pos));
+        }
+    }
+
+    @Benchmark
+    public void batch(Blackhole sink) {
+        sampleAndRelease(batches.get(0), sink);
+    }
+
+    // every batch of a 16x16 chunk area at once on a pool the size of the machine, time per batch
+    @Benchmark
+    @OperationsPerInvocation(BATCHES)
+    public void parallelBatches(Blackhole sink) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[BATCHES];
+        for (int b = 0; b < BATCHES; b++) {
+            List<ChunkPos> batch = batches.get(b);
+            futures[b] = CompletableFuture.runAsync(() -> sampleAndRelease(batch, sink), ForkJoinPool.commonPool());
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    private void sampleAndRelease(List<ChunkPos> batch, Blackhole sink) {
+        Long2ObjectMap<TellusIntegration.TellusChunkData> samples = TellusIntegration.sampleBatch(settings, batch);
+        for (TellusIntegration.TellusChunkData data : samples.values()) {
+            sink.consume(data.heights()[255]);
+            TellusIntegration.release(data);
+        }
+    }
+
+    // the sampler before batching, settings resolved and buffers allocated for every chunk.
+    // receivers were held as objects, so every invoke adapted the call type
+    private TellusIntegration.TellusChunkData sampleChunk(ChunkPos pos) throws Throwable {
+        Object settingsObject = stubSettings;
+        Object elevationSource = elevation;
+        Object coverSource = cover;
+        double scale = (double) worldScale.invoke(settingsObject);
+        double terrestrial = (double) terrestrialHeightScale.invoke(settingsObject);
+        double oceanic = (double) oceanicHeightScale.invoke(settingsObject);
+        int offset = (int) heightOffset.invoke(settingsObject);
+
+        int[] heights = new int[256];
+        int[] coverClasses = new int[256];
+        int minBlockX = pos.getMinBlockX();
+        int minBlockZ = pos.getMinBlockZ();
+        for (int i = 0; i < 256; i++) {
+            int worldZ = minBlockZ + (i >> 4);
+            int worldX = minBlockX + (i & 15);
+            try {
+                double meters = (double) baselineElevation.invoke(elevationSource, (double) worldX, (double) worldZ, scale, true);
+                double heightScale = meters >= 0.0 ? terrestrial : oceanic;
+                double scaled = meters * heightScale / scale;
+                heights[i] = (meters >= 0.0 ? Mth.ceil(scaled) : Mth.floor(scaled)) + offset;
+                coverClasses[i] = (int) baselineCover.invoke(coverSource, worldX, worldZ, scale);
+            } catch (Throwable ignored) {
+            }
+        }
+        return new TellusIntegration.TellusChunkData(heights, coverClasses);
+    }
+}
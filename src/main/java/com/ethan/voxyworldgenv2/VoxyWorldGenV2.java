@@ -1,8 +1,11 @@
 package com.ethan.voxyworldgenv2;
 
 import com.ethan.voxyworldgenv2.core.ChunkGenerationManager;
+import com.ethan.voxyworldgenv2.core.QuarantineCommands;
 import com.ethan.voxyworldgenv2.event.ServerEventHandler;
+import com.ethan.voxyworldgenv2.jobs.JobCommands;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
@@ -29,5 +32,11 @@ public class VoxyWorldGenV2 implements ModInitializer {
         
         // server tick event
         ServerTickEvents.END_SERVER_TICK.register(ServerEventHandler::onServerTick);
+        
+        // pregeneration job and quarantine commands
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
+            JobCommands.register(dispatcher);
+            QuarantineCommands.register(dispatcher);
+        });
     }
 }
@@ -56,12 +56,16 @@ public final class DebugRenderer {
         
         String[] lines = {
             "§6[voxy worldgen v2] " + status,
-            "§7completed: §a" + formatNumber(stats.getCompleted()),
+            "§7completed: §a" + formatNumber(stats.getCompleted()) + " §8(disk: " + formatNumber(stats.getDiskIngested()) + ")",
             "§7skipped: §f" + formatNumber(stats.getSkipped()),
+            "§7failed: §c" + formatNumber(stats.getFailed()) + " §8(" + formatNumber(stats.getWastedDispatches()) + " wasted retries, " + formatNumber(stats.getDeferred()) + " deferred, " + stats.getQuarantined() + " quarantined)",
             "§7remaining: §e" + formatNumber(remaining) + " §8(" + eta + ")",
-            "§7active: §b" + manager.getActiveTaskCount(),
-            "§7rate: §f" + String.format("%.1f", rate) + " c/s",
-            "§7voxy: " + (VoxyIntegration.isVoxyAvailable() ? "§aenabled" : "§cdisabled")
+            "§7active: §b" + manager.getActiveTaskCount() + " §8/ " + stats.getConcurrencyLimit() + " §8(oldest " + String.format("%.1f", stats.getOldestInFlightMs() / 1000.0) + "s, " + formatNumber(stats.getTimedOut()) + " timed out)",
+            "§7main thread queue: §f" + manager.getQueueSize() + " §8(" + formatNumber(stats.getLoadedChunks()) + " chunks loaded)",
+            "§7rate: §f" + String.format("%.1f", rate) + " c/s §8(" + stats.getRegionsPerMinute() + " regions/min)",
+            "§7prefetch hit rate: §f" + (stats.getPrefetchHitRate() < 0 ? "-" : String.format("%.1f%%", stats.getPrefetchHitRate() * 100)),
+            "§7voxy: " + (VoxyIntegration.isVoxyAvailable() ? "§aenabled" : "§cdisabled"),
+            "§7ingest: §f" + stats.getIngestQueueDepth() + " §8queued, §f" + String.format("%.1f", stats.getIngestLatencyMs()) + "ms§8, §c" + formatNumber(stats.getIngestDropped()) + " §8dropped"
         };
         
         int y = screenHeight - (lines.length * lineHeight) - 4;
@@ -0,0 +1,137 @@
+package com.ethan.voxyworldgenv2.core;
+
+import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * persists completed chunks off the server thread
+ * new keys are appended to a journal every few seconds, the journal is folded
+ * into the region snapshot periodically and when the writer is closed.
+ * every write runs on one thread in submission order, so anything submitted after a close
+ * sees the files that close left behind
+ */
+public class CheckpointWriter {
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Voxy-WorldGen-Checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final ResourceKey<Level> dimKey;
+    private final ScheduledFuture<?> task;
+    private LongArrayList pending = new LongArrayList();
+    private long lastCompaction = System.nanoTime();
+
+    public CheckpointWriter(ServerLevel level, ResourceKey<Level> dimKey) {
+        this(ChunkPersistence.getSavePath(level, dimKey), ChunkPersistence.getJournalPath(level, dimKey), dimKey);
+    }
+
+    public CheckpointWriter(Path snapshotPath, Path journalPath, ResourceKey<Level> dimKey) {
+        this.snapshotPath = snapshotPath;
+        this.journalPath = journalPath;
+        this.dimKey = dimKey;
+        int interval = Math.max(1, Config.DATA.checkpointIntervalSeconds);
+        this.task = EXECUTOR.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.SECONDS);
+    }
+
+    // runs other io of the mod on the same thread, after everything queued before it
+    static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    public void record(long chunkPos) {
+        synchronized (this) {
+            pending.add(chunkPos);
+        }
+    }
+
+    // flush and compact everything recorded so far, the returned future completes once it is on disk
+    public CompletableFuture<Void> close() {
+        task.cancel(false);
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            try {
+                flush();
+                compact();
+            } catch (Exception e) {
+                VoxyWorldGenV2.LOGGER.error("failed to write final checkpoint for {}", dimKey, e);
+            }
+        }, EXECUTOR);
+        return future;
+    }
+
+    private void checkpoint() {
+        try {
+            flush();
+            long interval = TimeUnit.SECONDS.toNanos(Math.max(1, Config.DATA.compactionIntervalSeconds));
+            if (System.nanoTime() - lastCompaction >= interval) {
+                compact();
+            }
+        } catch (Exception e) {
+            VoxyWorldGenV2.LOGGER.error("failed to checkpoint chunk generation cache for {}", dimKey, e);
+        }
+    }
+
+    private void flush() throws IOException {
+        LongArrayList batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new LongArrayList();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(batch.size() * 8);
+        for (int i = 0; i < batch.size(); i++) {
+            buffer.putLong(batch.getLong(i));
+        }
+        buffer.flip();
+
+        // appends at the last whole entry, never behind a torn one
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long end = channel.size() & ~7L;
+            if (end != channel.size()) channel.truncate(end);
+            channel.position(end);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsyncPolicy() == Config.FsyncPolicy.ALWAYS) channel.force(false);
+        }
+    }
+
+    // fold the journal into the snapshot, replaying a journal twice is harmless
+    private void compact() throws IOException {
+        lastCompaction = System.nanoTime();
+        if (!Files.exists(journalPath)) return;
+
+        Long2ObjectMap<long[]> regions = new Long2ObjectOpenHashMap<>();
+        if (Files.exists(snapshotPath)) {
+            ChunkPersistence.readRegions(snapshotPath, regions);
+        }
+        ChunkPersistence.readJournal(journalPath, pos -> ChunkPersistence.setBit(regions, pos));
+        ChunkPersistence.writeRegions(snapshotPath, regions, fsyncPolicy() != Config.FsyncPolicy.NEVER);
+        Files.delete(journalPath);
+    }
+
+    private static Config.FsyncPolicy fsyncPolicy() {
+        Config.FsyncPolicy policy = Config.DATA.checkpointFsync;
+        return policy != null ? policy : Config.FsyncPolicy.COMPACTION;
+    }
+}
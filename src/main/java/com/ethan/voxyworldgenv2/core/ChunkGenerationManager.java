@@ -1,67 +1,84 @@
 package com.ethan.voxyworldgenv2.core;
 
 import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import com.ethan.voxyworldgenv2.generation.DiskChunkDecoder;
+import com.ethan.voxyworldgenv2.generation.FastGenerationPool;
+import com.ethan.voxyworldgenv2.generation.HeightmapGenerator;
+import com.ethan.voxyworldgenv2.integration.TellusIntegration;
+import com.ethan.voxyworldgenv2.integration.VoxyIngestPipeline;
 import com.ethan.voxyworldgenv2.integration.VoxyIntegration;
+import com.ethan.voxyworldgenv2.jobs.JobManager;
+import com.ethan.voxyworldgenv2.mixin.ChunkMapMixin;
 //import com.ethan.voxyworldgenv2.mixin.MinecraftServerAccess;
 import com.ethan.voxyworldgenv2.mixin.ServerChunkCacheMixin;
 import com.ethan.voxyworldgenv2.stats.GenerationStats;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ChunkHolder;
+import net.minecraft.server.level.ChunkLevel;
 import net.minecraft.server.level.ServerChunkCache;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.level.TicketType;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.status.ChunkStatus;
 
-import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
-import it.unimi.dsi.fastutil.longs.LongSet;
-import it.unimi.dsi.fastutil.longs.LongSets;
-
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Set;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public final class ChunkGenerationManager {
     private static final ChunkGenerationManager INSTANCE = new ChunkGenerationManager();
-    
-    // sets - we use primitive sets to reduce gc pressure
-    private final LongSet completedChunks = LongSets.synchronize(new LongOpenHashSet());
-    private final LongSet trackedChunks = LongSets.synchronize(new LongOpenHashSet());
+    // expires on its own if a release is ever missed, well past the chunk timeout
+    private static final TicketType<ChunkPos> GENERATION_TICKET =
+            TicketType.create("voxyworldgen", Comparator.comparingLong(ChunkPos::toLong), 20 * 60 * 5);
+    private static final int UNLOAD_BATCH = 64;
+    private static final int UNLOAD_INTERVAL_TICKS = 20;
     
     // state
     private final AtomicInteger activeTaskCount = new AtomicInteger(0);
     private final GenerationStats stats = new GenerationStats();
-    private final AtomicInteger remainingInRadius = new AtomicInteger(0);
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean configReloadScheduled = new AtomicBoolean(false);
     
     // components
     private final TpsMonitor tpsMonitor = new TpsMonitor();
-    private final DistanceGraph distanceGraph = new DistanceGraph();
-    private final Set<Long> trackedBatches = ConcurrentHashMap.newKeySet();
-    private final Map<Long, AtomicInteger> batchCounters = new ConcurrentHashMap<>();
-    private Semaphore throttle;
+    private final Map<ResourceKey<Level>, DimensionContext> contexts = new ConcurrentHashMap<>();
+    private final ConcurrencyController concurrency = new ConcurrencyController();
+    private final MainThreadQueue mainThread = new MainThreadQueue();
+    private final TaskDeadlines deadlines = new TaskDeadlines();
+    private final VoxyIngestPipeline ingest = new VoxyIngestPipeline(stats);
     private MinecraftServer server;
-    private ResourceKey<Level> currentDimensionKey = null;
-    private ServerLevel currentLevel = null;
-    private ChunkPos lastPlayerPos = null;
     private java.util.function.BooleanSupplier pauseCheck = () -> false;
-    private boolean tellusActive = false;
-    private final Map<Long, com.ethan.voxyworldgenv2.integration.TellusIntegration.TellusChunkData> tellusPendingHeights = new ConcurrentHashMap<>();
+    private int nextContext = 0;
+    private int jobVersion = -1;
+    private int jobTicks = 0;
+    private int retryTicks = 0;
+    private int pendingUnloads = 0; // main thread only
+    private int unloadTicks = 0;
     
     // worker
     private Thread workerThread;
     private final AtomicBoolean workerRunning = new AtomicBoolean(false);
 
+    private enum Tier {
+        FULL,      // features, structures and light
+        NOISE,     // terrain shape only, ingested from the proto chunk
+        HEIGHTMAP  // sampled surface height, never touches the chunk map
+    }
+
     private ChunkGenerationManager() {}
     
     public static ChunkGenerationManager getInstance() {
@@ -74,7 +91,11 @@ public final class ChunkGenerationManager {
         // unpaused by default
         this.pauseCheck = () -> false; 
         Config.load();
-        this.throttle = new Semaphore(Config.DATA.maxActiveTasks);
+        this.concurrency.reset(Config.DATA.maxActiveTasks);
+        this.stats.setConcurrencyLimit(concurrency.getLimit());
+        this.ingest.start(Config.DATA.ingestThreads, Config.DATA.ingestQueueCapacity);
+        JobManager.getInstance().load(server);
+        this.jobVersion = -1;
         startWorker();
         VoxyWorldGenV2.LOGGER.info("voxy world gen initialized");
     }
@@ -83,21 +104,24 @@ public final class ChunkGenerationManager {
         running.set(false);
         stopWorker();
         
-        if (currentLevel != null && currentDimensionKey != null) {
-            ChunkPersistence.save(currentLevel, currentDimensionKey, completedChunks);
+        // the final flush has to land before the server exits
+        List<CompletableFuture<Void>> closing = new ArrayList<>();
+        for (DimensionContext ctx : contexts.values()) {
+            closing.add(ctx.close());
         }
+        CompletableFuture.allOf(closing.toArray(new CompletableFuture[0])).join();
+        ingest.stop();
+        JobManager.getInstance().unload();
+        TellusIntegration.shutdown();
+        FastGenerationPool.shutdown();
         
-        trackedChunks.clear();
-        completedChunks.clear();
-        trackedBatches.clear();
-        batchCounters.clear();
+        contexts.clear();
+        mainThread.clear();
+        deadlines.clear();
         server = null;
         stats.reset();
         activeTaskCount.set(0);
-        remainingInRadius.set(0);
         tpsMonitor.reset();
-        currentDimensionKey = null;
-        currentLevel = null;
     }
 
     private void startWorker() {
@@ -115,10 +139,26 @@ public final class ChunkGenerationManager {
         }
     }
 
+    // round robin over dimensions with players or jobs, all of them share the same permits
+    private List<DimensionContext> contextOrder() {
+        List<DimensionContext> active = new ArrayList<>(contexts.size());
+        for (DimensionContext ctx : contexts.values()) {
+            if (ctx.isLoaded() && !ctx.scheduler.isEmpty()) active.add(ctx);
+        }
+        if (active.size() > 1) {
+            int start = Math.floorMod(nextContext++, active.size());
+            List<DimensionContext> rotated = new ArrayList<>(active.size());
+            rotated.addAll(active.subList(start, active.size()));
+            rotated.addAll(active.subList(0, start));
+            return rotated;
+        }
+        return active;
+    }
+
     private void workerLoop() {
         while (workerRunning.get() && running.get()) {
             try {
-                if (!Config.DATA.enabled || server == null || currentLevel == null) {
+                if (!Config.DATA.enabled || server == null) {
                     Thread.sleep(100);
                     continue;
                 }
@@ -127,18 +167,38 @@ public final class ChunkGenerationManager {
                     Thread.sleep(500);
                     continue;
                 }
+
+                // never generate faster than voxy can take the chunks
+                if (ingest.isBacklogged()) {
+                    Thread.sleep(50);
+                    continue;
+                }
                 
-                var players = PlayerTracker.getInstance().getPlayers();
-                if (players.isEmpty()) {
+                List<DimensionContext> order = contextOrder();
+                if (order.isEmpty()) {
                     Thread.sleep(1000);
                     continue;
                 }
-                ChunkPos center = players.iterator().next().chunkPosition();
 
-                int radius = tellusActive ? Math.max(Config.DATA.generationRadius, 128) : Config.DATA.generationRadius;
-
-                // get next batch
-                List<ChunkPos> batch = distanceGraph.findWork(center, radius, trackedBatches);
+                // get next batch from the most deserving frontier
+                // a region is 8 batches wide, the band is how many rings it may run ahead
+                int localityBand = (int) Math.round(Config.DATA.regionLocality * 8);
+                DimensionContext ctx = null;
+                FairShareScheduler.Frontier frontier = null;
+                List<ChunkPos> batch = null;
+                search:
+                for (DimensionContext candidateCtx : order) {
+                    for (FairShareScheduler.Frontier candidate : candidateCtx.scheduler.order()) {
+                        batch = candidateCtx.graphFor(candidate).findWork(candidate.cursor(), candidate.center(), candidate.radius(),
+                                candidate.square(), candidateCtx::claimBatch, localityBand);
+                        if (batch != null) {
+                            ctx = candidateCtx;
+                            frontier = candidate;
+                            break search;
+                        }
+                        candidateCtx.scheduler.markExhausted(candidate, candidateCtx.hasMissing(candidate));
+                    }
+                }
                 
                 if (batch == null) {
                     Thread.sleep(100);
@@ -146,100 +206,51 @@ public final class ChunkGenerationManager {
                 }
                 
                 long batchKey = DistanceGraph.getBatchKey(batch.get(0).x, batch.get(0).z);
-                batchCounters.put(batchKey, new AtomicInteger(batch.size()));
 
-                // skip if already tracked locally
-                List<ChunkPos> preFiltered = new ArrayList<>(batch.size());
+                // claim the chunks that are neither done nor owned by another batch
+                List<ChunkPos> claimed = new ArrayList<>(batch.size());
                 for (ChunkPos pos : batch) {
-                    long key = pos.toLong();
-                    if (completedChunks.contains(key) || trackedChunks.contains(key)) {
-                        onSuccess(pos);
-                    } else {
-                        preFiltered.add(pos);
+                    switch (ctx.claimChunk(pos.toLong(), frontier.isFull())) {
+                        case DimensionContext.CLAIMED -> claimed.add(pos);
+                        case DimensionContext.DEFERRED -> stats.incrementDeferred();
+                        default -> stats.incrementSkipped();
                     }
                 }
 
-                if (preFiltered.isEmpty()) {
-                    trackedBatches.remove(batchKey);
-                    batchCounters.remove(batchKey);
+                ctx.scheduler.charge(frontier, claimed.size());
+
+                if (claimed.isEmpty()) {
+                    ctx.batchStates.set(batchKey, ChunkStateTable.NONE);
                     continue;
                 }
 
                 // dispatch tasks
                 List<ChunkPos> readyToGenerate = new ArrayList<>();
-                for (ChunkPos pos : preFiltered) {
-                    if (!workerRunning.get()) break;
-                    
-                    throttle.acquire();
+                for (ChunkPos pos : claimed) {
+                    if (!workerRunning.get()) {
+                        ctx.chunkStates.compareAndSet(pos.toLong(), ChunkStateTable.QUEUED, ChunkStateTable.NONE);
+                        continue;
+                    }
                     
-                    if (trackedChunks.add(pos.toLong())) {
-                        activeTaskCount.incrementAndGet();
-                        stats.incrementQueued();
-                        
-                        if (tellusActive) {
-                            // sample data for tellus on worker thread
-                            var data = com.ethan.voxyworldgenv2.integration.TellusIntegration.sampleData(currentLevel, pos);
-                            if (data != null) {
-                                tellusPendingHeights.put(pos.toLong(), data);
-                            }
-                        }
-                        
-                        readyToGenerate.add(pos);
-                    } else {
-                        throttle.release();
-                        onFailure(pos);
+                    // backpressure before dispatch, the queue must hold whatever is already in flight
+                    while (!ingest.hasRoomFor(activeTaskCount.get()) && workerRunning.get()) {
+                        Thread.sleep(10);
                     }
+                    concurrency.acquire();
+                    
+                    ctx.chunkStates.set(pos.toLong(), ChunkStateTable.IN_FLIGHT);
+                    activeTaskCount.incrementAndGet();
+                    stats.incrementQueued();
+                    readyToGenerate.add(pos);
                 }
 
                 if (!readyToGenerate.isEmpty()) {
-                    server.execute(() -> {
-                        if (currentLevel == null) {
-                            for (ChunkPos p : readyToGenerate) completeTask(p);
-                            return;
-                        }
-                        
-                        ServerChunkCache cache = currentLevel.getChunkSource();
-                        List<ChunkPos> actuallyGenerate = new ArrayList<>();
-                        
-                        for (ChunkPos pos : readyToGenerate) {
-                            if (currentLevel.hasChunk(pos.x, pos.z)) {
-                                onSuccess(pos);
-                                completeTask(pos);
-                            } else if (tellusActive) {
-                                // fast path for tellus
-                                var data = tellusPendingHeights.remove(pos.toLong());
-                                if (data != null) {
-                                    com.ethan.voxyworldgenv2.integration.TellusIntegration.generateFromHeights(currentLevel, pos, data);
-                                    onSuccess(pos);
-                                } else {
-                                    onFailure(pos);
-                                }
-                                completeTask(pos);
-                            } else {
-                                cache.addRegionTicket(TicketType.FORCED, pos, 0, pos);
-                                actuallyGenerate.add(pos);
-                            }
-                        }
-                        
-                        if (!actuallyGenerate.isEmpty()) {
-                            ((ServerChunkCacheMixin) cache).invokeRunDistanceManagerUpdates();
-                            
-                            for (ChunkPos pos : actuallyGenerate) {
-                                ((ServerChunkCacheMixin) cache).invokeGetChunkFutureMainThread(pos.x, pos.z, ChunkStatus.FULL, true)
-                                    .whenCompleteAsync((result, throwable) -> {
-                                        if (throwable == null && result != null && result.isSuccess() && result.orElse(null) instanceof LevelChunk chunk) {
-                                            onSuccess(pos);
-                                            if (!chunk.isEmpty()) {
-                                                VoxyIntegration.ingestChunk(chunk);
-                                            }
-                                        } else {
-                                            onFailure(pos);
-                                        }
-                                        server.execute(() -> cleanupTask(cache, pos));
-                                    }, server);
-                            }
-                        }
-                    });
+                    DimensionContext target = ctx;
+                    if (ctx.isTellusActive()) {
+                        mainThread.submit(() -> dispatchTellus(target, readyToGenerate));
+                    } else {
+                        dispatchTiers(target, frontier, readyToGenerate);
+                    }
                 }
 
             } catch (InterruptedException e) {
@@ -252,143 +263,396 @@ public final class ChunkGenerationManager {
         }
     }
 
+    // lod tier by distance from the frontier, measured from the edge of the player cluster.
+    // pregeneration jobs and detail frontiers always produce real chunks
+    private Tier tierOf(DimensionContext ctx, FairShareScheduler.Frontier frontier, ChunkPos pos) {
+        if (frontier.isFull() || !ctx.supportsLodTiers()) return Tier.FULL;
+        int spread = Math.max(0, frontier.radius() - ctx.getRadius());
+        double dist = Math.sqrt(distSq(frontier.center(), pos)) - spread;
+        if (dist <= Config.DATA.fullDetailRadius) return Tier.FULL;
+        if (dist <= Config.DATA.noiseDetailRadius || !ctx.supportsHeightmapLod()) return Tier.NOISE;
+        return Tier.HEIGHTMAP;
+    }
+
+    private void dispatchTiers(DimensionContext ctx, FairShareScheduler.Frontier frontier, List<ChunkPos> readyToGenerate) {
+        List<ChunkPos> full = new ArrayList<>();
+        List<ChunkPos> noise = new ArrayList<>();
+        List<ChunkPos> heightmap = new ArrayList<>();
+        for (ChunkPos pos : readyToGenerate) {
+            switch (tierOf(ctx, frontier, pos)) {
+                case FULL -> full.add(pos);
+                case NOISE -> noise.add(pos);
+                case HEIGHTMAP -> heightmap.add(pos);
+            }
+        }
+
+        boolean probeDisk = Config.DATA.diskIngest && VoxyIntegration.isRawIngestAvailable();
+        if (!full.isEmpty()) mainThread.submit(() -> dispatch(ctx, full, ChunkStatus.FULL, probeDisk));
+        if (!noise.isEmpty()) mainThread.submit(() -> dispatch(ctx, noise, ChunkStatus.NOISE, probeDisk));
+        if (!heightmap.isEmpty()) {
+            HeightmapGenerator.generateBatchAsync(ctx.level(), heightmap, ingest)
+                .whenComplete((built, throwable) -> completeFastBatch(ctx, heightmap, built, throwable, false));
+        }
+    }
+
+    // loaded chunks are left alone, voxy already has their real terrain and the heightmap
+    // approximation would overwrite it. the rest of the tellus pipeline runs on its pool
+    private void dispatchTellus(DimensionContext ctx, List<ChunkPos> readyToGenerate) {
+        if (contexts.get(ctx.dimensionKey()) != ctx) {
+            for (ChunkPos p : readyToGenerate) completeTask(ctx, p);
+            return;
+        }
+
+        List<ChunkPos> unloaded = new ArrayList<>(readyToGenerate.size());
+        for (ChunkPos pos : readyToGenerate) {
+            if (ctx.level().hasChunk(pos.x, pos.z)) {
+                onSuccess(ctx, pos, true);
+                completeTask(ctx, pos);
+            } else {
+                unloaded.add(pos);
+            }
+        }
+        if (!unloaded.isEmpty()) {
+            TellusIntegration.generateBatchAsync(ctx.level(), unloaded, ingest)
+                .whenComplete((built, throwable) -> completeFastBatch(ctx, unloaded, built, throwable, true));
+        }
+    }
+
+    private void dispatch(DimensionContext ctx, List<ChunkPos> readyToGenerate, ChunkStatus status, boolean probeDisk) {
+        if (contexts.get(ctx.dimensionKey()) != ctx) {
+            for (ChunkPos p : readyToGenerate) completeTask(ctx, p);
+            return;
+        }
+
+        ServerLevel level = ctx.level();
+        ServerChunkCache cache = level.getChunkSource();
+        List<ChunkPos> actuallyGenerate = new ArrayList<>();
+        List<ChunkPos> unloaded = new ArrayList<>();
+
+        for (ChunkPos pos : readyToGenerate) {
+            if (level.hasChunk(pos.x, pos.z)) {
+                onSuccess(ctx, pos, true);
+                completeTask(ctx, pos);
+            } else if (probeDisk) {
+                stats.recordRegionTouched(pos);
+                unloaded.add(pos);
+            } else {
+                stats.recordRegionTouched(pos);
+                addTicket(cache, pos, status);
+                actuallyGenerate.add(pos);
+            }
+        }
+
+        if (!unloaded.isEmpty()) {
+            readFromDisk(ctx, cache, unloaded, status);
+        }
+
+        if (!actuallyGenerate.isEmpty()) {
+            // tickets from every batch drained this tick share one distance manager update
+            mainThread.afterDistanceUpdate(cache, () -> {
+                long dispatchedAt = System.nanoTime();
+                long timeout = Config.DATA.chunkTimeoutSeconds * 1_000_000_000L;
+                for (ChunkPos pos : actuallyGenerate) {
+                    TaskDeadlines.Deadline deadline = deadlines.track(ctx, pos, status, dispatchedAt, timeout);
+                    ((ServerChunkCacheMixin) cache).invokeGetChunkFutureMainThread(pos.x, pos.z, status, true)
+                        .whenComplete((result, throwable) -> mainThread.submit(() -> {
+                            ChunkAccess chunk = throwable == null && result != null && result.isSuccess() ? result.orElse(null) : null;
+                            if (!deadlines.settle(deadline)) {
+                                // timed out, the ticket and permit are gone but a late chunk still counts once voxy took it.
+                                // otherwise it stays failed and is retried after its backoff
+                                if (chunk != null && (status != ChunkStatus.FULL || chunk instanceof LevelChunk)
+                                        && contexts.get(ctx.dimensionKey()) == ctx && ingest.ingest(level, chunk)) {
+                                    if (status == ChunkStatus.FULL ? ctx.markCompleted(pos.toLong()) : ctx.markLodCompleted(pos.toLong())) {
+                                        stats.incrementCompleted();
+                                    }
+                                    ctx.chunkStates.compareAndSet(pos.toLong(), ChunkStateTable.FAILED, ChunkStateTable.NONE);
+                                }
+                                return;
+                            }
+                            concurrency.recordLatency(System.nanoTime() - dispatchedAt);
+                            // full chunks must have been promoted, lod tiers ingest the proto chunk.
+                            // a chunk only counts once voxy took it
+                            if (chunk != null && (status != ChunkStatus.FULL || chunk instanceof LevelChunk)) {
+                                boolean empty = chunk instanceof LevelChunk levelChunk && levelChunk.isEmpty();
+                                if (empty || ingest.ingest(level, chunk)) {
+                                    onSuccess(ctx, pos, status == ChunkStatus.FULL);
+                                } else {
+                                    onFailure(ctx, pos, "ingest rejected");
+                                }
+                            } else if (chunk != null) {
+                                onFailure(ctx, pos, "not promoted to full");
+                            } else {
+                                onFailure(ctx, pos, throwable != null ? describe(throwable) : "chunk unloaded");
+                            }
+                            cleanupTask(ctx, cache, pos, status);
+                        }));
+                }
+            });
+        }
+    }
+
+    // chunks already saved far enough are ingested from their nbt without loading them,
+    // the rest go back through the ticket path. each read is settled on its own so a stuck read only fails its chunk
+    private void readFromDisk(DimensionContext ctx, ServerChunkCache cache, List<ChunkPos> chunks, ChunkStatus status) {
+        long dispatchedAt = System.nanoTime();
+        long timeout = Config.DATA.chunkTimeoutSeconds * 1_000_000_000L;
+        for (ChunkPos pos : chunks) {
+            TaskDeadlines.Deadline deadline = deadlines.trackRead(ctx, pos, status, dispatchedAt, timeout);
+            ((ChunkMapMixin) cache.chunkMap).invokeReadChunk(pos).handleAsync((read, throwable) -> {
+                // timed out, the chunk already failed and is retried through the scheduler
+                if (!deadlines.settle(deadline)) return null;
+                CompoundTag tag = throwable == null ? read.orElse(null) : null;
+                Object worldId = VoxyIntegration.getWorldIdentifier(ctx.level());
+                if (worldId != null && tag != null && DiskChunkDecoder.isGenerated(tag, status)) {
+                    LongSet built = new LongOpenHashSet();
+                    if (DiskChunkDecoder.ingest(ctx.level(), pos, tag, worldId, ingest)) {
+                        built.add(pos.toLong());
+                        stats.addDiskIngested(1);
+                    }
+                    completeFastBatch(ctx, List.of(pos), built, null, status == ChunkStatus.FULL);
+                } else {
+                    mainThread.submit(() -> dispatch(ctx, List.of(pos), status, false));
+                }
+                return null;
+            }, FastGenerationPool.get());
+        }
+    }
+
+    // bookkeeping for batches built off the server thread, runs on the fast generation pool
+    private void completeFastBatch(DimensionContext ctx, List<ChunkPos> batch, LongSet built, Throwable error, boolean full) {
+        boolean current = contexts.get(ctx.dimensionKey()) == ctx;
+        for (ChunkPos pos : batch) {
+            if (current) {
+                if (built != null && built.contains(pos.toLong())) {
+                    onSuccess(ctx, pos, full);
+                } else {
+                    onFailure(ctx, pos, error != null ? describe(error) : "not built");
+                }
+            }
+            completeTask(ctx, pos);
+        }
+    }
+
+    // called from the end of the server tick
+    public void drainMainThread() {
+        if (!running.get() || server == null) return;
+        mainThread.drain(Math.max(0L, Config.DATA.mainThreadBudgetNanos));
+    }
+
     public void tick() {
         if (!running.get() || server == null) return;
         
+        var players = PlayerTracker.getInstance().getPlayers();
         if (configReloadScheduled.compareAndSet(true, false)) {
             Config.load();
-            updateThrottleCapacity();
-            var players = PlayerTracker.getInstance().getPlayers();
-            if (!players.isEmpty()) {
-                restartScan(players.iterator().next().chunkPosition());
+            for (DimensionContext ctx : contexts.values()) {
+                ctx.restartScan(players);
             }
         }
         
         tpsMonitor.tick();
         stats.tick();
-        checkPlayerMovement();
+        int viewDistance = server.getPlayerList().getViewDistance();
+        PlayerTracker.getInstance().tick((player, previous) -> {
+            DimensionContext ctx = contexts.get(player.level().dimension());
+            if (ctx != null) ctx.sampleEnteredView(previous, player.chunkPosition(), viewDistance, stats);
+        });
+        stats.setIngestQueueDepth(ingest.getDepth());
+        concurrency.tick(server.getAverageTickTimeNanos() / 1_000_000.0, ingest.isBacklogged(), stats);
+        checkPlayerMovement(players);
+        tickJobs(players);
+        tickRetries();
+        tickTimeouts();
+        tickUnloads();
     }
-    
-    private void checkPlayerMovement() {
-        var players = PlayerTracker.getInstance().getPlayers();
-        if (players.isEmpty()) return;
 
-        ServerPlayer player = players.iterator().next();
-        ChunkPos currentPos = player.chunkPosition();
-        
-        if (player.level() != currentLevel) {
-             setupLevel((ServerLevel) player.level());
+    // released chunks are unloaded in batches, one chunk map and entity manager pass per batch
+    private void tickUnloads() {
+        unloadTicks++;
+        if (pendingUnloads >= UNLOAD_BATCH || (pendingUnloads > 0 && unloadTicks >= UNLOAD_INTERVAL_TICKS)) {
+            pendingUnloads = 0;
+            unloadTicks = 0;
+            ((MinecraftServerExtension) server).voxyworldgen$markHousekeeping();
         }
-
-        // rescan if player moved significantly
-        if (lastPlayerPos == null || distSq(lastPlayerPos, currentPos) >= 4) {
-            lastPlayerPos = currentPos;
-            restartScan(currentPos);
+        if (unloadTicks % 20 == 0) {
+            int loaded = 0;
+            for (ServerLevel level : server.getAllLevels()) {
+                loaded += level.getChunkSource().getLoadedChunksCount();
+            }
+            stats.setLoadedChunks(loaded);
         }
     }
 
-    private double distSq(ChunkPos a, ChunkPos b) {
-        int dx = a.x - b.x;
-        int dz = a.z - b.z;
-        return (double) dx * dx + dz * dz;
+    // dispatches whose chunk future never completed give back their ticket and permit
+    private void tickTimeouts() {
+        for (TaskDeadlines.Deadline deadline : deadlines.pollExpired()) {
+            DimensionContext ctx = deadline.ctx;
+            ServerChunkCache cache = ctx.level().getChunkSource();
+            long ageMs = (System.nanoTime() - deadline.dispatchedAt) / 1_000_000;
+            ChunkHolder holder = ((ChunkMapMixin) cache.chunkMap).invokeGetVisibleChunkIfPresent(deadline.pos.toLong());
+            VoxyWorldGenV2.LOGGER.warn("chunk {} in {} timed out after {}ms waiting for {}, holder: {}",
+                    deadline.pos, ctx.dimensionKey().location(), ageMs, deadline.status,
+                    holder == null ? "none" : "status " + holder.getLatestStatus() + ", ticket level " + holder.getTicketLevel());
+            stats.incrementTimedOut();
+            if (contexts.get(ctx.dimensionKey()) == ctx) onFailure(ctx, deadline.pos, "timeout");
+            if (deadline.ticketed) {
+                cleanupTask(ctx, cache, deadline.pos, deadline.status);
+            } else {
+                completeTask(ctx, deadline.pos);
+            }
+        }
+        stats.setOldestInFlightMs(deadlines.oldestAgeNanos() / 1_000_000);
     }
 
-    private void setupLevel(ServerLevel newLevel) {
-        if (currentLevel != null && currentDimensionKey != null) {
-            ChunkPersistence.save(currentLevel, currentDimensionKey, completedChunks);
-        }
-        
-        currentLevel = newLevel;
-        currentDimensionKey = newLevel.dimension();
-        tellusActive = com.ethan.voxyworldgenv2.integration.TellusIntegration.isTellusWorld(newLevel);
-        
-        if (tellusActive) {
-            VoxyWorldGenV2.LOGGER.info("tellus world detected, enabling fast generation");
+    // once a second, backed off chunks go back to the scheduler
+    private void tickRetries() {
+        if (++retryTicks < 20) return;
+        retryTicks = 0;
+        int quarantined = 0;
+        for (DimensionContext ctx : contexts.values()) {
+            ctx.releaseDueRetries();
+            quarantined += ctx.failures.getQuarantinedCount();
         }
-        
-        completedChunks.clear();
-        trackedChunks.clear();
-        trackedBatches.clear();
-        batchCounters.clear();
-        ChunkPersistence.load(newLevel, currentDimensionKey, completedChunks);
-        
-        for (long pos : completedChunks) {
-            distanceGraph.markChunkCompleted(ChunkPos.getX(pos), ChunkPos.getZ(pos));
+        stats.setQuarantined(quarantined);
+    }
+
+    // jobs load their dimension without players, so pregeneration also runs headless
+    private void tickJobs(java.util.Collection<ServerPlayer> players) {
+        JobManager jobs = JobManager.getInstance();
+        int version = jobs.getVersion();
+        if (version != jobVersion) {
+            jobVersion = version;
+            for (ResourceKey<Level> key : jobs.getActiveDimensions()) {
+                if (contexts.containsKey(key)) continue;
+                ServerLevel level = server.getLevel(key);
+                if (level == null) {
+                    VoxyWorldGenV2.LOGGER.warn("pregeneration job targets unknown dimension {}", key.location());
+                    continue;
+                }
+                contexts.put(key, new DimensionContext(level));
+            }
+            for (DimensionContext ctx : contexts.values()) {
+                ctx.restartScan(players);
+            }
         }
-        
-        var players = PlayerTracker.getInstance().getPlayers();
-        if (!players.isEmpty()) {
-            restartScan(players.iterator().next().chunkPosition());
+
+        if (++jobTicks >= 100) {
+            jobTicks = 0;
+            CompletableFuture.runAsync(() -> jobs.refreshProgress((key, area) -> {
+                DimensionContext ctx = contexts.get(key);
+                return ctx != null ? ctx.countMissing(area) : -1;
+            }, (key, area) -> {
+                DimensionContext ctx = contexts.get(key);
+                return ctx != null ? ctx.countQuarantined(area) : 0;
+            }), FastGenerationPool.get()).exceptionally(e -> {
+                VoxyWorldGenV2.LOGGER.error("failed to refresh pregeneration progress", e);
+                return null;
+            });
         }
     }
     
-    private void restartScan(ChunkPos center) {
-        int radius = tellusActive ? Math.max(Config.DATA.generationRadius, 128) : Config.DATA.generationRadius;
-        remainingInRadius.set(distanceGraph.countMissingInRange(center, radius));
-    }
-
-    private void updateThrottleCapacity() {
-        int target = Config.DATA.maxActiveTasks;
-        int current = throttle.availablePermits() + activeTaskCount.get();
-        if (current != target) {
-             int diff = target - current;
-             if (diff > 0) throttle.release(diff);
-             else throttle.tryAcquire(-diff);
+    private void checkPlayerMovement(java.util.Collection<ServerPlayer> players) {
+        // dimensions are set up the first time a player enters them and kept afterwards
+        for (ServerPlayer player : players) {
+            if (player.level() instanceof ServerLevel level && !contexts.containsKey(level.dimension())) {
+                contexts.put(level.dimension(), new DimensionContext(level));
+            }
+        }
+
+        // rescan if any player joined, left or moved significantly
+        for (DimensionContext ctx : contexts.values()) {
+            if (ctx.playersChanged(players)) {
+                ctx.restartScan(players);
+            }
         }
     }
-    
-    private void cleanupTask(ServerChunkCache cache, ChunkPos pos) {
-        server.execute(() -> {
-            cache.removeRegionTicket(TicketType.FORCED, pos, 0, pos);
-            ((MinecraftServerExtension) server).voxyworldgen$markHousekeeping();
-            //((MinecraftServerAccess) server).setEmptyTicks(0);
-            completeTask(pos);
-        });
+
+    // a plain ticket at the level of the target status, full chunks stay border chunks and never tick.
+    // unlike region tickets it is not seen by the ticking tracker
+    private static void addTicket(ServerChunkCache cache, ChunkPos pos, ChunkStatus status) {
+        ((ServerChunkCacheMixin) cache).getDistanceManager().addTicket(GENERATION_TICKET, pos, ChunkLevel.byStatus(status), pos);
+    }
+
+    private static void removeTicket(ServerChunkCache cache, ChunkPos pos, ChunkStatus status) {
+        ((ServerChunkCacheMixin) cache).getDistanceManager().removeTicket(GENERATION_TICKET, pos, ChunkLevel.byStatus(status), pos);
+    }
+
+    private static double distSq(ChunkPos a, ChunkPos b) {
+        int dx = a.x - b.x;
+        int dz = a.z - b.z;
+        return (double) dx * dx + dz * dz;
+    }
+
+    // the unload itself is left to tickUnloads
+    private void cleanupTask(DimensionContext ctx, ServerChunkCache cache, ChunkPos pos, ChunkStatus status) {
+        removeTicket(cache, pos, status);
+        mainThread.markDistanceUpdate(cache);
+        pendingUnloads++;
+        //((MinecraftServerAccess) server).setEmptyTicks(0);
+        completeTask(ctx, pos);
     }
     
-    private void onSuccess(ChunkPos pos) {
-        long key = pos.toLong();
-        if (completedChunks.add(key)) {
+    // leaving in flight releases the permit exactly once
+    private void onSuccess(DimensionContext ctx, ChunkPos pos, boolean full) {
+        if (full ? ctx.markCompleted(pos.toLong()) : ctx.markLodCompleted(pos.toLong())) {
             stats.incrementCompleted();
-            distanceGraph.markChunkCompleted(pos.x, pos.z);
-            remainingInRadius.decrementAndGet();
         } else {
             stats.incrementSkipped();
         }
-        decrementBatch(pos);
+        if (ctx.chunkStates.compareAndSet(pos.toLong(), ChunkStateTable.IN_FLIGHT, ChunkStateTable.NONE)) releasePermit();
+        ctx.releaseBatchIfIdle(pos);
     }
     
-    private void onFailure(ChunkPos pos) {
+    // the chunk is retried by tick once its backoff ran out, or quarantined.
+    // only a quarantined chunk leaves the remaining count, a retried one is counted when it completes
+    private void onFailure(DimensionContext ctx, ChunkPos pos, String error) {
         stats.incrementFailed();
-        remainingInRadius.decrementAndGet();
-        decrementBatch(pos);
+        if (ctx.chunkStates.compareAndSet(pos.toLong(), ChunkStateTable.IN_FLIGHT, ChunkStateTable.FAILED)) releasePermit();
+        ctx.releaseBatchIfIdle(pos);
+        FailureRegistry.Failure failure = ctx.failures.recordFailure(pos.toLong(), error);
+        if (failure.count() > 1) stats.incrementWastedDispatches();
+        if (failure.quarantined()) {
+            VoxyWorldGenV2.LOGGER.warn("quarantined chunk {} in {} after {} failures, last error: {}",
+                    pos, ctx.dimensionKey().location(), failure.count(), error);
+            ctx.remainingInRadius.decrementAndGet();
+        }
     }
 
-    private void decrementBatch(ChunkPos pos) {
-        long batchKey = DistanceGraph.getBatchKey(pos.x, pos.z);
-        AtomicInteger counter = batchCounters.get(batchKey);
-        if (counter != null && counter.decrementAndGet() <= 0) {
-            trackedBatches.remove(batchKey);
-            batchCounters.remove(batchKey);
-        }
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getClass().getSimpleName();
     }
     
-    private void completeTask(ChunkPos pos) {
-        if (trackedChunks.remove(pos.toLong())) {
-            activeTaskCount.decrementAndGet();
-            throttle.release();
+    // releases a chunk that is still in flight without a result, no-op after onSuccess or onFailure
+    private void completeTask(DimensionContext ctx, ChunkPos pos) {
+        if (ctx.chunkStates.compareAndSet(pos.toLong(), ChunkStateTable.IN_FLIGHT, ChunkStateTable.FAILED)) {
+            releasePermit();
         }
     }
+
+    private void releasePermit() {
+        activeTaskCount.decrementAndGet();
+        concurrency.release();
+    }
     
     public void scheduleConfigReload() {
         configReloadScheduled.set(true);
     }
     
     public GenerationStats getStats() { return stats; }
+    VoxyIngestPipeline getIngest() { return ingest; }
+    DimensionContext getContext(ResourceKey<Level> key) { return contexts.get(key); }
     public int getActiveTaskCount() { return activeTaskCount.get(); }
-    public int getRemainingInRadius() { return remainingInRadius.get(); }
     public boolean isThrottled() { return tpsMonitor.isThrottled(); }
-    public int getQueueSize() { return 0; }
+    public int getQueueSize() { return mainThread.size(); }
+
+    public int getRemainingInRadius() {
+        int total = 0;
+        for (DimensionContext ctx : contexts.values()) {
+            total += Math.max(0, ctx.remainingInRadius.get());
+        }
+        return total;
+    }
     
     public void setPauseCheck(java.util.function.BooleanSupplier check) {
         this.pauseCheck = check;
@@ -1,54 +1,228 @@
 package com.ethan.voxyworldgenv2.core;
 
 import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.storage.LevelResource;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Set;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
 
+/**
+ * region bitmap format, one 32x32 bit tile per minecraft region
+ * header: magic, version, region count
+ * region: rx, rz, 16 longs (bit = (x & 31) + ((z & 31) << 5))
+ * newer completions live in an append-only journal of raw chunk keys, see CheckpointWriter
+ */
 public class ChunkPersistence {
-    
-    public static void save(ServerLevel level, ResourceKey<Level> dimKey, Set<Long> completedChunks) {
+    private static final int MAGIC = 0x56584742; // VXGB
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int REGION_WORDS = 16;
+    private static final int REGION_BYTES = 8 + REGION_WORDS * 8;
+
+    // receives one region at a time, words in the snapshot layout
+    public interface RegionConsumer {
+        void accept(int rx, int rz, long[] words);
+    }
+
+    // feeds every region with completed chunks to the consumer, the journal already folded in
+    public static void load(ServerLevel level, ResourceKey<Level> dimKey, RegionConsumer completedRegions) {
         if (level == null || dimKey == null) return;
-        
+
         try {
-            String dimId = getDimensionId(dimKey);
-            Path savePath = level.getServer().getWorldPath(LevelResource.ROOT).resolve("voxy_gen_" + dimId + ".bin");
-            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(savePath)))) {
-                out.writeInt(completedChunks.size());
-                for (Long chunkPos : completedChunks) {
-                    out.writeLong(chunkPos);
-                }
+            Path savePath = getSavePath(level, dimKey);
+            if (!Files.exists(savePath)) {
+                migrateLegacy(level, dimKey, savePath);
+            }
+            long count = readAll(savePath, getJournalPath(level, dimKey), completedRegions);
+            if (count > 0) {
+                VoxyWorldGenV2.LOGGER.info("loaded {} chunks from voxy generation cache for {}", count, dimKey);
             }
         } catch (Exception e) {
-            VoxyWorldGenV2.LOGGER.error("failed to save chunk generation cache", e);
+            VoxyWorldGenV2.LOGGER.error("failed to load chunk generation cache", e);
         }
     }
-    
-    public static void load(ServerLevel level, ResourceKey<Level> dimKey, Set<Long> completedChunks) {
-        completedChunks.clear();
-        if (level == null || dimKey == null) return;
-        
+
+    // same for chunks that were only generated up to a lod tier
+    static void loadLod(ServerLevel level, ResourceKey<Level> dimKey, RegionConsumer lodRegions) {
         try {
-            String dimId = getDimensionId(dimKey);
-            Path savePath = level.getServer().getWorldPath(LevelResource.ROOT).resolve("voxy_gen_" + dimId + ".bin");
-            if (Files.exists(savePath)) {
-                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(savePath)))) {
-                    int count = in.readInt();
-                    for (int i = 0; i < count; i++) {
-                        completedChunks.add(in.readLong());
-                    }
-                }
-                VoxyWorldGenV2.LOGGER.info("loaded {} chunks from voxy generation cache for {}", completedChunks.size(), dimKey);
+            long count = readAll(getLodSavePath(level, dimKey), getLodJournalPath(level, dimKey), lodRegions);
+            if (count > 0) {
+                VoxyWorldGenV2.LOGGER.info("loaded {} lod chunks from voxy generation cache for {}", count, dimKey);
             }
         } catch (Exception e) {
-            VoxyWorldGenV2.LOGGER.error("failed to load chunk generation cache", e);
+            VoxyWorldGenV2.LOGGER.error("failed to load lod generation cache", e);
+        }
+    }
+
+    private static long readAll(Path savePath, Path journalPath, RegionConsumer out) throws IOException {
+        Long2ObjectMap<long[]> regions = new Long2ObjectOpenHashMap<>();
+        if (Files.exists(savePath)) {
+            readRegions(savePath, regions);
+        }
+        if (Files.exists(journalPath)) {
+            truncateTornTail(journalPath);
+            readJournal(journalPath, pos -> setBit(regions, pos));
+        }
+        long count = 0;
+        for (Long2ObjectMap.Entry<long[]> entry : regions.long2ObjectEntrySet()) {
+            for (long word : entry.getValue()) {
+                count += Long.bitCount(word);
+            }
+            out.accept(ChunkPos.getX(entry.getLongKey()), ChunkPos.getZ(entry.getLongKey()), entry.getValue());
+        }
+        return count;
+    }
+
+    static void setBit(Long2ObjectMap<long[]> regions, long chunkPos) {
+        int x = ChunkPos.getX(chunkPos);
+        int z = ChunkPos.getZ(chunkPos);
+        long regionKey = ChunkPos.asLong(x >> 5, z >> 5);
+        long[] bits = regions.get(regionKey);
+        if (bits == null) {
+            bits = new long[REGION_WORDS];
+            regions.put(regionKey, bits);
+        }
+        int bit = (x & 31) + ((z & 31) << 5);
+        bits[bit >> 6] |= 1L << bit;
+    }
+
+    // written to a temp file and renamed over the target so a crash never leaves a torn snapshot
+    static void writeRegions(Path path, Long2ObjectMap<long[]> regions, boolean fsync) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + regions.size() * REGION_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(regions.size());
+        for (Long2ObjectMap.Entry<long[]> entry : regions.long2ObjectEntrySet()) {
+            buffer.putInt(ChunkPos.getX(entry.getLongKey()));
+            buffer.putInt(ChunkPos.getZ(entry.getLongKey()));
+            for (long word : entry.getValue()) {
+                buffer.putLong(word);
+            }
+        }
+        buffer.flip();
+
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) channel.force(true);
+        }
+        Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ors every region of the snapshot into the map
+    static void readRegions(Path path, Long2ObjectMap<long[]> regions) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("not a voxy generation cache: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported voxy generation cache version " + version);
+            }
+
+            int count = buffer.getInt();
+            for (int r = 0; r < count; r++) {
+                int rx = buffer.getInt();
+                int rz = buffer.getInt();
+                long regionKey = ChunkPos.asLong(rx, rz);
+                long[] bits = regions.get(regionKey);
+                if (bits == null) {
+                    bits = new long[REGION_WORDS];
+                    regions.put(regionKey, bits);
+                }
+                for (int w = 0; w < REGION_WORDS; w++) {
+                    bits[w] |= buffer.getLong();
+                }
+            }
+        }
+    }
+
+    // a crash mid-append leaves 1 to 7 stray bytes, appending after them would shift every later key
+    static void truncateTornTail(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if ((size & 7) == 0) return;
+            channel.truncate(size & ~7L);
+            VoxyWorldGenV2.LOGGER.warn("dropped a torn entry of {} bytes from {}", size & 7, path.getFileName());
+        }
+    }
+
+    static void readJournal(Path path, LongConsumer out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // a torn trailing entry from a crash is ignored
+            long size = channel.size() & ~7L;
+            if (size == 0) return;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            while (buffer.hasRemaining()) {
+                out.accept(buffer.getLong());
+            }
+        }
+    }
+
+    // convert the old list-of-longs file to the region format
+    private static void migrateLegacy(ServerLevel level, ResourceKey<Level> dimKey, Path savePath) throws IOException {
+        Path legacyPath = getWorldPath(level).resolve("voxy_gen_" + getDimensionId(dimKey) + ".bin");
+        if (!Files.exists(legacyPath)) return;
+
+        Long2ObjectMap<long[]> regions = new Long2ObjectOpenHashMap<>();
+        int count;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(legacyPath)))) {
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                setBit(regions, in.readLong());
+            }
         }
+        writeRegions(savePath, regions, true);
+        Files.delete(legacyPath);
+        VoxyWorldGenV2.LOGGER.info("migrated {} chunks to region cache format for {}", count, dimKey);
+    }
+
+    static Path getSavePath(ServerLevel level, ResourceKey<Level> dimKey) {
+        return getWorldPath(level).resolve("voxy_gen_" + getDimensionId(dimKey) + ".regions");
+    }
+
+    static Path getJournalPath(ServerLevel level, ResourceKey<Level> dimKey) {
+        return getWorldPath(level).resolve("voxy_gen_" + getDimensionId(dimKey) + ".journal");
+    }
+
+    // chunks generated only as far as a lod tier, they are upgraded once they fall into the full detail radius
+    static Path getLodSavePath(ServerLevel level, ResourceKey<Level> dimKey) {
+        return getWorldPath(level).resolve("voxy_gen_" + getDimensionId(dimKey) + ".lod.regions");
+    }
+
+    static Path getLodJournalPath(ServerLevel level, ResourceKey<Level> dimKey) {
+        return getWorldPath(level).resolve("voxy_gen_" + getDimensionId(dimKey) + ".lod.journal");
+    }
+
+    // prefix of the temp file backing the off heap completion bitmap, deleted when the dimension closes
+    static String getBitmapName(ResourceKey<Level> dimKey) {
+        return "voxy_gen_" + getDimensionId(dimKey) + ".";
+    }
+
+    static String getLodBitmapName(ResourceKey<Level> dimKey) {
+        return "voxy_gen_" + getDimensionId(dimKey) + ".lod.";
+    }
+
+    static Path getQuarantinePath(ServerLevel level, ResourceKey<Level> dimKey) {
+        return getWorldPath(level).resolve("voxy_gen_" + getDimensionId(dimKey) + ".quarantine");
+    }
+
+    private static Path getWorldPath(ServerLevel level) {
+        return level.getServer().getWorldPath(LevelResource.ROOT);
     }
 
     private static String getDimensionId(ResourceKey<Level> dimKey) {
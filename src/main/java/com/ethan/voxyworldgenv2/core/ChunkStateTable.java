@@ -0,0 +1,224 @@
+package com.ethan.voxyworldgenv2.core;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * concurrent long -> state map for chunk and batch keys
+ * 64 stripes of open addressing arrays, each behind a stamped lock. lookups are optimistic and
+ * only fall back to the read lock when a writer raced them, writers lock a single stripe.
+ * setting NONE removes the entry, so only chunks in some transient state take space, 12 to 24
+ * bytes each depending on how full the stripe is. completed chunks live in the CompletionBitmap
+ */
+public final class ChunkStateTable {
+    public static final byte NONE = 0;
+    public static final byte QUEUED = 1;    // handed out in a batch, waiting for a permit
+    public static final byte IN_FLIGHT = 2; // dispatched, holds a permit
+    public static final byte FAILED = 3;    // may be claimed again
+
+    private static final int STRIPE_BITS = 6;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    // slot values are state + 1, 0 marks an empty slot
+    private static final class Stripe {
+        final StampedLock lock = new StampedLock();
+        long[] keys = new long[INITIAL_CAPACITY];
+        byte[] values = new byte[INITIAL_CAPACITY];
+        int size = 0;
+    }
+
+    public ChunkStateTable() {
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new Stripe();
+    }
+
+    public byte get(long key) {
+        long h = HashCommon.mix(key);
+        Stripe stripe = stripe(h);
+        long stamp = stripe.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            long[] keys = stripe.keys;
+            byte[] values = stripe.values;
+            // a grow may be half visible, mismatched arrays go to the read lock
+            if (keys.length == values.length) {
+                byte state = lookup(keys, values, key, h);
+                if (stripe.lock.validate(stamp)) return state;
+            }
+        }
+        stamp = stripe.lock.readLock();
+        try {
+            return lookup(stripe.keys, stripe.values, key, h);
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    public void set(long key, byte state) {
+        getAndSet(key, state);
+    }
+
+    public byte getAndSet(long key, byte state) {
+        long h = HashCommon.mix(key);
+        Stripe stripe = stripe(h);
+        long stamp = stripe.lock.writeLock();
+        try {
+            int slot = slot(stripe, key, h);
+            byte previous = (byte) Math.max(0, stripe.values[slot] - 1);
+            store(stripe, slot, key, state, h);
+            return previous;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean compareAndSet(long key, byte expected, byte state) {
+        long h = HashCommon.mix(key);
+        Stripe stripe = stripe(h);
+        long stamp = stripe.lock.writeLock();
+        try {
+            int slot = slot(stripe, key, h);
+            if (Math.max(0, stripe.values[slot] - 1) != expected) return false;
+            store(stripe, slot, key, state, h);
+            return true;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    // moves an unclaimed (NONE or FAILED) key to the given state
+    public boolean tryClaim(long key, byte state) {
+        long h = HashCommon.mix(key);
+        Stripe stripe = stripe(h);
+        long stamp = stripe.lock.writeLock();
+        try {
+            int slot = slot(stripe, key, h);
+            int current = Math.max(0, stripe.values[slot] - 1);
+            if (current != NONE && current != FAILED) return false;
+            store(stripe, slot, key, state, h);
+            return true;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    // keys in the given state, copied stripe by stripe so writers are never blocked for long
+    public LongIterator snapshot(byte state) {
+        LongArrayList result = new LongArrayList();
+        byte stored = (byte) (state + 1);
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                long[] keys = stripe.keys;
+                byte[] values = stripe.values;
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] == stored) result.add(keys[i]);
+                }
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return result.iterator();
+    }
+
+    public int count(byte state) {
+        int count = 0;
+        byte stored = (byte) (state + 1);
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                for (byte value : stripe.values) {
+                    if (value == stored) count++;
+                }
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    private Stripe stripe(long h) {
+        return stripes[(int) (h >>> (64 - STRIPE_BITS))];
+    }
+
+    // the arrays may be replaced, written or shifted while an optimistic read runs, the caller validates.
+    // a probe always ends because the load factor keeps empty slots around
+    private static byte lookup(long[] keys, byte[] values, long key, long h) {
+        int mask = values.length - 1;
+        int i = (int) h & mask;
+        while (true) {
+            byte value = values[i];
+            if (value == 0) return NONE;
+            if (keys[i] == key) return (byte) (value - 1);
+            i = (i + 1) & mask;
+        }
+    }
+
+    // slot holding the key, or the empty slot it would go in
+    private static int slot(Stripe stripe, long key, long h) {
+        int mask = stripe.values.length - 1;
+        int i = (int) h & mask;
+        while (stripe.values[i] != 0 && stripe.keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static void store(Stripe stripe, int slot, long key, byte state, long h) {
+        if (state == NONE) {
+            if (stripe.values[slot] != 0) remove(stripe, slot);
+            return;
+        }
+        if (stripe.values[slot] == 0) {
+            if ((stripe.size + 1) * 4L > stripe.values.length * 3L) {
+                grow(stripe);
+                slot = slot(stripe, key, h);
+            }
+            stripe.keys[slot] = key;
+            stripe.size++;
+        }
+        stripe.values[slot] = (byte) (state + 1);
+    }
+
+    // backward shift deletion, entries after the hole move up so no probe chain breaks
+    private static void remove(Stripe stripe, int slot) {
+        long[] keys = stripe.keys;
+        byte[] values = stripe.values;
+        int mask = values.length - 1;
+        int hole = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == 0) break;
+            int home = (int) HashCommon.mix(keys[i]) & mask;
+            // move the entry if its home is not cyclically between the hole and its slot
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = 0;
+        stripe.size--;
+    }
+
+    private static void grow(Stripe stripe) {
+        long[] oldKeys = stripe.keys;
+        byte[] oldValues = stripe.values;
+        long[] keys = new long[oldValues.length * 2];
+        byte[] values = new byte[oldValues.length * 2];
+        int mask = values.length - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] == 0) continue;
+            int i = (int) HashCommon.mix(oldKeys[j]) & mask;
+            while (values[i] != 0) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+        stripe.keys = keys;
+        stripe.values = values;
+    }
+}
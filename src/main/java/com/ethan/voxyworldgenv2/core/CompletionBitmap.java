@@ -0,0 +1,164 @@
+package com.ethan.voxyworldgenv2.core;
+
+import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.world.level.ChunkPos;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * one bit per completed chunk, kept off heap in 128 byte pages, one page per 32x32 region.
+ * pages are handed out lazily from 16 MiB segments of a memory mapped scratch file, so cold
+ * regions are paged out by the os and the heap only holds the region -> page index.
+ * falls back to direct buffers when the file cannot be created.
+ * the bitmap is rebuilt from the checkpoint on load. the scratch file lives in the temp dir and is deleted
+ * on close, or on exit where a mapped file cannot be deleted
+ */
+final class CompletionBitmap {
+    private static final int PAGE_BYTES = 128;
+    private static final int SEGMENT_PAGES = 1 << 17;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_PAGES * PAGE_BYTES;
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // region -> page, guarded by the lock. pages are never removed
+    private final Long2IntOpenHashMap pages = new Long2IntOpenHashMap();
+    private final StampedLock lock = new StampedLock();
+    private final List<ByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final Path scratchFile;
+    private final FileChannel channel;
+    private int nextPage = 0;
+
+    CompletionBitmap(String name) {
+        pages.defaultReturnValue(-1);
+        Path file = null;
+        FileChannel opened = null;
+        try {
+            file = Files.createTempFile(name, ".bitmap");
+            opened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            VoxyWorldGenV2.LOGGER.warn("could not create completion bitmap file for {}, keeping it in memory: {}", name, e.toString());
+        }
+        this.scratchFile = file;
+        this.channel = opened;
+    }
+
+    boolean contains(long chunkPos) {
+        int page = getPage(regionKey(chunkPos));
+        if (page < 0) return false;
+        int bit = bitIndex(chunkPos);
+        long word = (long) WORDS.getVolatile(segments.get(page / SEGMENT_PAGES), wordOffset(page, bit));
+        return (word & (1L << (bit & 63))) != 0;
+    }
+
+    // returns true if the bit was not set before
+    boolean set(long chunkPos) {
+        int page = pageFor(regionKey(chunkPos));
+        int bit = bitIndex(chunkPos);
+        long mask = 1L << (bit & 63);
+        long previous = (long) WORDS.getAndBitwiseOr(segments.get(page / SEGMENT_PAGES), wordOffset(page, bit), mask);
+        return (previous & mask) == 0;
+    }
+
+    // ors a whole region in, words use the same layout as the page
+    void setRegion(int rx, int rz, long[] words) {
+        int page = pageFor(ChunkPos.asLong(rx, rz));
+        ByteBuffer segment = segments.get(page / SEGMENT_PAGES);
+        for (int w = 0; w < words.length; w++) {
+            if (words[w] != 0) WORDS.getAndBitwiseOr(segment, wordOffset(page, w << 6), words[w]);
+        }
+    }
+
+    // late completions may still write, the mappings stay valid until they are collected.
+    // windows refuses to delete a file that is still mapped, it is then left for exit
+    void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                VoxyWorldGenV2.LOGGER.warn("failed to close completion bitmap: {}", e.toString());
+            }
+        }
+        if (scratchFile != null) {
+            try {
+                Files.deleteIfExists(scratchFile);
+            } catch (IOException e) {
+                scratchFile.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    // pages are only ever added, so a lookup that raced no writer is exact.
+    // one that overlapped a rehash may have read torn arrays and is redone under the read lock
+    private int getPage(long regionKey) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int page = pages.get(regionKey);
+                if (lock.validate(stamp)) return page;
+            } catch (ArrayIndexOutOfBoundsException ignored) {
+                // the mask and key array of a rehash were seen out of step
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return pages.get(regionKey);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int pageFor(long regionKey) {
+        int page = getPage(regionKey);
+        if (page >= 0) return page;
+        long stamp = lock.writeLock();
+        try {
+            page = pages.get(regionKey);
+            if (page >= 0) return page;
+            int allocated = nextPage++;
+            if (allocated / SEGMENT_PAGES >= segments.size()) {
+                segments.add(allocateSegment(segments.size()));
+            }
+            // the segment is in place before the page becomes visible
+            pages.put(regionKey, allocated);
+            return allocated;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private ByteBuffer allocateSegment(int index) {
+        if (channel != null) {
+            try {
+                return channel.map(FileChannel.MapMode.READ_WRITE, index * SEGMENT_BYTES, SEGMENT_BYTES);
+            } catch (IOException e) {
+                VoxyWorldGenV2.LOGGER.warn("failed to map completion bitmap segment, using memory: {}", e.toString());
+            }
+        }
+        // atomic access needs 8 byte aligned words
+        return ByteBuffer.allocateDirect((int) SEGMENT_BYTES + 8).alignedSlice(8);
+    }
+
+    private static long regionKey(long chunkPos) {
+        return ChunkPos.asLong(ChunkPos.getX(chunkPos) >> 5, ChunkPos.getZ(chunkPos) >> 5);
+    }
+
+    // same bit layout as the region snapshot, (x & 31) + ((z & 31) << 5)
+    private static int bitIndex(long chunkPos) {
+        return (ChunkPos.getX(chunkPos) & 31) + ((ChunkPos.getZ(chunkPos) & 31) << 5);
+    }
+
+    private static int wordOffset(int page, int bit) {
+        return (page % SEGMENT_PAGES) * PAGE_BYTES + (bit >> 6) * 8;
+    }
+}
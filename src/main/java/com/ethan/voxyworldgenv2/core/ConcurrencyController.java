@@ -0,0 +1,127 @@
+package com.ethan.voxyworldgenv2.core;
+
+import com.ethan.voxyworldgenv2.stats.GenerationStats;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * gradient style concurrency limiter for generation tasks
+ * the limit grows while the server has mspt headroom and task latency is stable,
+ * and backs off multiplicatively when mspt passes the target
+ */
+public class ConcurrencyController {
+    private static final long UPDATE_INTERVAL_NANOS = 1_000_000_000L;
+    private static final double BACKOFF = 0.8;
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_LATENCY_ALPHA = 0.05;
+
+    private volatile ResizableSemaphore permits = new ResizableSemaphore(0);
+    private volatile int limit = 0;
+    private double smoothedLimit = 0;
+
+    // latency samples since the last update, in nanos
+    private final AtomicLong latencySum = new AtomicLong(0);
+    private final AtomicLong latencyCount = new AtomicLong(0);
+    private double longLatency = 0;
+    private double lastThroughput = 0;
+    private long lastUpdate = 0;
+
+    private static class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+
+    public synchronized void reset(int initialLimit) {
+        int target = Math.max(1, initialLimit);
+        permits = new ResizableSemaphore(target);
+        limit = target;
+        smoothedLimit = target;
+        longLatency = 0;
+        lastThroughput = 0;
+        lastUpdate = 0;
+        latencySum.set(0);
+        latencyCount.set(0);
+    }
+
+    public void acquire() throws InterruptedException {
+        permits.acquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public void recordLatency(long nanos) {
+        latencySum.addAndGet(nanos);
+        latencyCount.incrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    // call every server tick, a backlogged consumer is treated like an overloaded tick
+    public void tick(double mspt, boolean backlogged, GenerationStats stats) {
+        long now = System.nanoTime();
+        if (now - lastUpdate < UPDATE_INTERVAL_NANOS) return;
+        lastUpdate = now;
+
+        Config.ConfigData config = Config.DATA;
+        if (!config.adaptiveConcurrency) {
+            if (limit != config.maxActiveTasks) {
+                resize(config.maxActiveTasks);
+                smoothedLimit = limit;
+            }
+            stats.setConcurrencyLimit(limit);
+            return;
+        }
+
+        long count = latencyCount.getAndSet(0);
+        long sum = latencySum.getAndSet(0);
+        double shortLatency = count > 0 ? (double) sum / count : longLatency;
+        if (longLatency == 0) longLatency = shortLatency;
+
+        double throughput = stats.getChunksPerSecond();
+        double target;
+        if (mspt > config.targetMspt || backlogged) {
+            target = smoothedLimit * BACKOFF;
+        } else {
+            // latency rising above its long term average means queues are building up
+            double gradient = shortLatency > 0 ? Math.max(0.5, Math.min(1.0, longLatency / shortLatency)) : 1.0;
+            double headroom = Math.max(0.0, (config.targetMspt - mspt) / config.targetMspt);
+            double probe = Math.sqrt(smoothedLimit) * headroom;
+
+            // more tasks without more chunks per second is wasted work, hold instead of probing
+            if (throughput > 0 && throughput < lastThroughput * 1.02 && gradient < 1.0) {
+                probe = 0;
+            }
+            target = smoothedLimit * gradient + probe;
+            target = smoothedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+        }
+        longLatency = longLatency * (1 - LONG_LATENCY_ALPHA) + shortLatency * LONG_LATENCY_ALPHA;
+        lastThroughput = throughput;
+
+        int min = Math.max(1, config.adaptiveMinTasks);
+        int max = Math.max(min, config.adaptiveMaxTasks);
+        smoothedLimit = Math.max(min, Math.min(max, target));
+        resize((int) Math.round(smoothedLimit));
+        stats.setConcurrencyLimit(limit);
+    }
+
+    private synchronized void resize(int newLimit) {
+        int diff = newLimit - limit;
+        if (diff > 0) {
+            permits.release(diff);
+        } else if (diff < 0) {
+            // may go negative, in-flight tasks drain it back down
+            permits.reduce(-diff);
+        }
+        limit = newLimit;
+    }
+}
@@ -57,5 +57,31 @@ public final class Config {
         public int update_interval = 20; // legacy field for Compat
         public int maxQueueSize = 20000;
         public int maxActiveTasks = 20;
+        public boolean adaptiveConcurrency = true;
+        public double targetMspt = 40.0;
+        public int adaptiveMinTasks = 4;
+        public int adaptiveMaxTasks = 256;
+        public int checkpointIntervalSeconds = 10;
+        public int compactionIntervalSeconds = 300;
+        public FsyncPolicy checkpointFsync = FsyncPolicy.COMPACTION;
+        public long mainThreadBudgetNanos = 5_000_000L;
+        public int ingestThreads = 1;
+        public int ingestQueueCapacity = 512;
+        public int tellusThreads = 0; // 0 = cores - 2
+        public int fullDetailRadius = 128; // chunks generated to FULL
+        public int noiseDetailRadius = 256; // chunks generated to NOISE, heightmap only beyond
+        public boolean diskIngest = false; // ingest saved chunks from their nbt instead of loading them
+        public boolean scanExistingChunks = true; // mark chunks already in the region files as completed on load
+        public double predictionSeconds = 4.0; // how far ahead of moving players work is centered, 0 = on the player
+        public double regionLocality = 0.0; // region widths a region may run ahead of the distance order, 0 = strict
+        public int failureBackoffSeconds = 5; // wait after a chunk's first failure, doubled for every further one
+        public int failureQuarantineThreshold = 5; // failures after which a chunk is no longer retried
+        public int chunkTimeoutSeconds = 120; // chunk futures still pending after this are abandoned, 0 = never
+    }
+
+    public enum FsyncPolicy {
+        ALWAYS,     // force the journal after every flush
+        COMPACTION, // force only when a snapshot is written
+        NEVER
     }
 }
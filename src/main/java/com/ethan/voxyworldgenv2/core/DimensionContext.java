@@ -0,0 +1,311 @@
+package com.ethan.voxyworldgenv2.core;
+
+import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import com.ethan.voxyworldgenv2.generation.FastGenerationPool;
+import com.ethan.voxyworldgenv2.generation.HeightmapGenerator;
+import com.ethan.voxyworldgenv2.integration.TellusIntegration;
+import com.ethan.voxyworldgenv2.integration.VoxyIntegration;
+import com.ethan.voxyworldgenv2.jobs.JobManager;
+import com.ethan.voxyworldgenv2.stats.GenerationStats;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * generation state of a single dimension
+ * every loaded dimension keeps its own graph, completion set and checkpoint file
+ */
+public final class DimensionContext {
+    private final ServerLevel level;
+    private final ResourceKey<Level> dimensionKey;
+    private final boolean tellusActive;
+    private final boolean heightmapLod;
+    private final boolean lodTiers;
+
+    // chunk keys: queued, in flight or failed. batch keys: in flight while handed out
+    final ChunkStateTable chunkStates = new ChunkStateTable();
+    // completion holds chunks generated at full detail, lodCompletion those that only reached a lod tier.
+    // distanceGraph tracks full chunks for detail and job frontiers, lodGraph chunks at any tier
+    private final CompletionBitmap completion;
+    private final CompletionBitmap lodCompletion;
+    final FailureRegistry failures;
+    final ChunkStateTable batchStates = new ChunkStateTable();
+
+    final DistanceGraph distanceGraph = new DistanceGraph();
+    final DistanceGraph lodGraph = new DistanceGraph();
+    final FairShareScheduler scheduler = new FairShareScheduler();
+    final AtomicInteger remainingInRadius = new AtomicInteger(0);
+    private final AtomicInteger scanSequence = new AtomicInteger(0);
+    private final Map<UUID, ChunkPos> lastPlayerPositions = new HashMap<>();
+    private final CheckpointWriter checkpointWriter;
+    private final CheckpointWriter lodCheckpointWriter;
+    private final RegionScanner regionScanner;
+    private final CompletableFuture<Void> loaded;
+
+    DimensionContext(ServerLevel level) {
+        this.level = level;
+        this.dimensionKey = level.dimension();
+        this.tellusActive = TellusIntegration.isTellusWorld(level);
+        this.heightmapLod = HeightmapGenerator.supports(level) && VoxyIntegration.isRawIngestAvailable();
+        // lod tiers only reach voxy through raw ingest, tellus builds every chunk the same way
+        this.lodTiers = !tellusActive && VoxyIntegration.isRawIngestAvailable();
+
+        if (tellusActive) {
+            VoxyWorldGenV2.LOGGER.info("tellus world detected in {}, enabling fast generation", dimensionKey.location());
+        }
+
+        this.completion = new CompletionBitmap(ChunkPersistence.getBitmapName(dimensionKey));
+        this.lodCompletion = new CompletionBitmap(ChunkPersistence.getLodBitmapName(dimensionKey));
+        this.failures = new FailureRegistry(ChunkPersistence.getQuarantinePath(level, dimensionKey));
+        // read on the checkpoint thread, after any writer of a previous context of this dimension closed.
+        // no work is handed out until it is done
+        this.loaded = CompletableFuture.runAsync(() -> {
+            ChunkPersistence.load(level, dimensionKey, (rx, rz, words) -> {
+                completion.setRegion(rx, rz, words);
+                distanceGraph.markRegionCompleted(rx, rz, words);
+                lodGraph.markRegionCompleted(rx, rz, words);
+            });
+            ChunkPersistence.loadLod(level, dimensionKey, (rx, rz, words) -> {
+                lodCompletion.setRegion(rx, rz, words);
+                lodGraph.markRegionCompleted(rx, rz, words);
+            });
+            failures.load();
+        }, CheckpointWriter::execute).exceptionally(e -> {
+            VoxyWorldGenV2.LOGGER.error("failed to load generation state of {}", dimensionKey.location(), e);
+            return null;
+        });
+        this.checkpointWriter = new CheckpointWriter(level, dimensionKey);
+        this.lodCheckpointWriter = new CheckpointWriter(ChunkPersistence.getLodSavePath(level, dimensionKey),
+                ChunkPersistence.getLodJournalPath(level, dimensionKey), dimensionKey);
+        this.regionScanner = Config.DATA.scanExistingChunks ? RegionScanner.start(this) : null;
+    }
+
+    public ServerLevel level() { return level; }
+    public ResourceKey<Level> dimensionKey() { return dimensionKey; }
+    public boolean isTellusActive() { return tellusActive; }
+    public boolean supportsHeightmapLod() { return heightmapLod; }
+    public boolean supportsLodTiers() { return lodTiers; }
+    boolean isLoaded() { return loaded.isDone(); }
+    CompletableFuture<Void> loaded() { return loaded; }
+
+    public int getRadius() {
+        return tellusActive ? Math.max(Config.DATA.generationRadius, 128) : Config.DATA.generationRadius;
+    }
+
+    // true if a player in this dimension joined, left or its predicted position moved significantly
+    boolean playersChanged(Collection<ServerPlayer> players) {
+        int count = 0;
+        boolean changed = false;
+        for (ServerPlayer player : players) {
+            if (player.level() != level) continue;
+            count++;
+            ChunkPos lastPos = lastPlayerPositions.get(player.getUUID());
+            ChunkPos currentPos = predict(player);
+            if (lastPos == null || distSq(lastPos, currentPos) >= 4) {
+                changed = true;
+            }
+        }
+        return changed || count != lastPlayerPositions.size();
+    }
+
+    void restartScan(Collection<ServerPlayer> players) {
+        lastPlayerPositions.clear();
+        List<FairShareScheduler.Anchor> anchors = new ArrayList<>();
+        for (ServerPlayer player : players) {
+            if (player.level() != level) continue;
+            ChunkPos predicted = predict(player);
+            lastPlayerPositions.put(player.getUUID(), predicted);
+            anchors.add(new FairShareScheduler.Anchor(player.chunkPosition(), predicted));
+        }
+
+        int detailRadius = lodTiers ? Config.DATA.fullDetailRadius : 0;
+        scheduler.rebuild(anchors, getRadius(), detailRadius, JobManager.getInstance().getAreas(dimensionKey));
+
+        // counted off the server thread, a newer scan supersedes the total.
+        // detail frontiers overlap their player frontier and are left out of it
+        List<FairShareScheduler.Frontier> frontiers = scheduler.getFrontiers();
+        int sequence = scanSequence.incrementAndGet();
+        loaded.thenRunAsync(() -> {
+            int total = 0;
+            for (FairShareScheduler.Frontier frontier : frontiers) {
+                int missing = graphFor(frontier).countMissingInRange(frontier.center(), frontier.radius(), frontier.square());
+                scheduler.setRemaining(frontier, missing);
+                if (frontier.isJob() || !frontier.isFull()) total += missing;
+            }
+            if (scanSequence.get() == sequence) remainingInRadius.set(total);
+        }, FastGenerationPool.get()).exceptionally(e -> {
+            VoxyWorldGenV2.LOGGER.error("failed to count missing chunks in {}", dimensionKey.location(), e);
+            return null;
+        });
+    }
+
+    // the lead is capped at half the radius, which also bounds how much the frontier grows
+    private ChunkPos predict(ServerPlayer player) {
+        return PlayerTracker.getInstance().predictChunk(player, Config.DATA.predictionSeconds, getRadius() / 2);
+    }
+
+    // records whether the chunks that just came into view were generated in time
+    void sampleEnteredView(ChunkPos from, ChunkPos to, int viewDistance, GenerationStats stats) {
+        if (!isLoaded()) return;
+        long hits = 0, misses = 0;
+        for (int x = to.x - viewDistance; x <= to.x + viewDistance; x++) {
+            for (int z = to.z - viewDistance; z <= to.z + viewDistance; z++) {
+                if (Math.abs(x - from.x) <= viewDistance && Math.abs(z - from.z) <= viewDistance) continue;
+                if (completion.contains(ChunkPos.asLong(x, z))) {
+                    hits++;
+                } else {
+                    misses++;
+                }
+            }
+        }
+        stats.addPrefetchSamples(hits, misses);
+    }
+
+    // quarantined chunks never generate, they count as settled so jobs can still finish. -1 until loaded
+    int countMissing(FairShareScheduler.Area area) {
+        if (!isLoaded()) return -1;
+        return Math.max(0, distanceGraph.countMissingInRange(area.center(), area.radius(), area.square()) - countQuarantined(area));
+    }
+
+    int countQuarantined(FairShareScheduler.Area area) {
+        return failures.countQuarantined(pos -> DistanceGraph.inRange(area.center(), area.radius(), area.square(),
+                ChunkPos.getX(pos), ChunkPos.getZ(pos)));
+    }
+
+    // the graph a frontier searches, full frontiers skip only chunks generated at full detail
+    DistanceGraph graphFor(FairShareScheduler.Frontier frontier) {
+        return frontier.isFull() ? distanceGraph : lodGraph;
+    }
+
+    // marks a chunk done at full detail, false if it already was. safe while the chunk is queued or in flight,
+    // its own completion then only finds the bit set
+    boolean markCompleted(long pos) {
+        if (!completion.set(pos)) return false;
+        failures.recordSuccess(pos);
+        checkpointWriter.record(pos);
+        int x = ChunkPos.getX(pos);
+        int z = ChunkPos.getZ(pos);
+        distanceGraph.markChunkCompleted(x, z);
+        lodGraph.markChunkCompleted(x, z);
+        // an upgraded lod chunk was already counted
+        if (!lodCompletion.contains(pos)) remainingInRadius.decrementAndGet();
+        return true;
+    }
+
+    // marks a chunk done at a lod tier, it stays missing for full frontiers until it is upgraded
+    boolean markLodCompleted(long pos) {
+        if (completion.contains(pos) || !lodCompletion.set(pos)) return false;
+        failures.recordSuccess(pos);
+        lodCheckpointWriter.record(pos);
+        lodGraph.markChunkCompleted(ChunkPos.getX(pos), ChunkPos.getZ(pos));
+        remainingInRadius.decrementAndGet();
+        return true;
+    }
+
+    boolean isCompleted(long pos) {
+        return completion.contains(pos);
+    }
+
+    private boolean isCompleted(long pos, boolean full) {
+        return completion.contains(pos) || (!full && lodCompletion.contains(pos));
+    }
+
+    // claim results: queued, already done at the frontier's tier or owned by another batch, backing off or quarantined
+    static final int CLAIMED = 0;
+    static final int SKIPPED = 1;
+    static final int DEFERRED = 2;
+
+    // queues a chunk that is neither done at the frontier's tier, backing off after a failure nor owned by another batch
+    int claimChunk(long pos, boolean full) {
+        if (isCompleted(pos, full)) return SKIPPED;
+        if (!failures.isEligible(pos)) return DEFERRED;
+        if (!chunkStates.tryClaim(pos, ChunkStateTable.QUEUED)) return SKIPPED;
+        // completed between the check and the claim
+        if (isCompleted(pos, full)) {
+            chunkStates.compareAndSet(pos, ChunkStateTable.QUEUED, ChunkStateTable.NONE);
+            return SKIPPED;
+        }
+        return CLAIMED;
+    }
+
+    // hands chunks whose backoff ran out back to the scheduler, their failed entry is dropped from the table
+    void releaseDueRetries() {
+        LongIterator due = failures.pollDue().iterator();
+        while (due.hasNext()) {
+            release(due.nextLong());
+        }
+    }
+
+    // returns how many chunks left the quarantine, they are scheduled again
+    int clearQuarantine(Long pos) {
+        LongList cleared = failures.clearQuarantine(pos);
+        LongIterator it = cleared.iterator();
+        while (it.hasNext()) {
+            release(it.nextLong());
+        }
+        return cleared.size();
+    }
+
+    private void release(long pos) {
+        chunkStates.compareAndSet(pos, ChunkStateTable.FAILED, ChunkStateTable.NONE);
+        scheduler.release(new ChunkPos(pos), false);
+    }
+
+    boolean claimBatch(long batchKey) {
+        return batchStates.tryClaim(batchKey, ChunkStateTable.IN_FLIGHT);
+    }
+
+    // frees the batch of the chunk once none of its chunks is queued or in flight.
+    // cursors that passed the batch while it was owned are rewound if it still misses chunks,
+    // failed chunks are left to their retry
+    void releaseBatchIfIdle(ChunkPos pos) {
+        int baseX = pos.x & ~3;
+        int baseZ = pos.z & ~3;
+        boolean missingFull = false;
+        boolean missingLod = false;
+        for (int i = 0; i < 16; i++) {
+            long chunk = ChunkPos.asLong(baseX + (i & 3), baseZ + (i >> 2));
+            byte state = chunkStates.get(chunk);
+            if (state == ChunkStateTable.QUEUED || state == ChunkStateTable.IN_FLIGHT) return;
+            if (state == ChunkStateTable.NONE && !completion.contains(chunk)) {
+                missingFull = true;
+                missingLod |= !lodCompletion.contains(chunk);
+            }
+        }
+        batchStates.set(DistanceGraph.getBatchKey(pos.x, pos.z), ChunkStateTable.NONE);
+        if (missingFull) scheduler.release(pos, !missingLod);
+    }
+
+    // true while the frontier's shape holds chunks that are neither done at its tier nor quarantined
+    boolean hasMissing(FairShareScheduler.Frontier frontier) {
+        FairShareScheduler.Area area = new FairShareScheduler.Area(frontier.center(), frontier.radius(), frontier.square(), 0);
+        return graphFor(frontier).countMissingInRange(frontier.center(), frontier.radius(), frontier.square()) > countQuarantined(area);
+    }
+
+    CompletableFuture<Void> close() {
+        scheduler.clear();
+        if (regionScanner != null) regionScanner.stop();
+        return CompletableFuture.allOf(
+                checkpointWriter.close().whenComplete((v, e) -> completion.close()),
+                lodCheckpointWriter.close().whenComplete((v, e) -> lodCompletion.close()));
+    }
+
+    private static double distSq(ChunkPos a, ChunkPos b) {
+        int dx = a.x - b.x;
+        int dz = a.z - b.z;
+        return (double) dx * dx + dz * dz;
+    }
+}
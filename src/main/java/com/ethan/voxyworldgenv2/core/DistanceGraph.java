@@ -1,7 +1,11 @@
 package com.ethan.voxyworldgenv2.core;
 
 import net.minecraft.world.level.ChunkPos;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
 import java.util.*;
 
 /**
@@ -10,27 +14,61 @@ import java.util.*;
  * l1: 8x8 l0 (32x32)
  * l2: 8x8 l1 (256x256)
  * l3: 8x8 l2 (2048x2048) -> entry point
+ * marking is lock-free, every word is only ever updated with atomic or / cas.
+ * every node caches its completed chunk count so range counts stop at nodes fully inside the range
  */
 public class DistanceGraph {
     private static final int BATCH_SIZE_SHIFT = 2; // 4 chunks
     private static final int NODE_SIZE_BITS = 3;   // 8 nodes
     private static final int ROOT_SIZE_SHIFT = 9;  // 512 nodes
+    private static final int REGION_SHIFT = 3;     // 8x8 batches, one l1 node, one region file
     
+    private static final VarHandle FULL_MASK;
+    private static final VarHandle COMPLETED;
+    private static final VarHandle MASKS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle CHILDREN = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    static {
+        try {
+            FULL_MASK = MethodHandles.lookup().findVarHandle(Node.class, "fullMask", long.class);
+            COMPLETED = MethodHandles.lookup().findVarHandle(Node.class, "completed", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final Map<Long, Node> roots = new ConcurrentHashMap<>();
 
     private static class Node {
         final int level;
         final int x, z; // level-space coords
-        long fullMask = 0;
-        final Map<Integer, Object> children = new ConcurrentHashMap<>();
+        volatile long fullMask = 0;
+        volatile int completed = 0; // chunks marked below this node
+        final Node[] children;  // l2, l3: 64 child slots
+        final long[] masks;     // l1: 64 batch masks, 4 x 16 bits per word
 
         Node(int level, int x, int z) {
             this.level = level;
             this.x = x;
             this.z = z;
+            this.children = level > 1 ? new Node[64] : null;
+            this.masks = level == 1 ? new long[16] : null;
         }
 
         boolean isFull() { return fullMask == -1L; }
+
+        int batchMask(int idx) {
+            long word = (long) MASKS.getAcquire(masks, idx >> 2);
+            return (int) (word >>> ((idx & 3) << 4)) & 0xFFFF;
+        }
+
+        Node child(int idx) {
+            return (Node) CHILDREN.getAcquire(children, idx);
+        }
+
+        void markFull(int idx) {
+            FULL_MASK.getAndBitwiseOr(this, 1L << idx);
+        }
     }
 
     public void markChunkCompleted(int cx, int cz) {
@@ -46,105 +84,337 @@ public class DistanceGraph {
         recursiveMark(root, bx, bz, bit);
     }
 
-    private void recursiveMark(Node node, int bx, int bz, int bit) {
+    /**
+     * marks every chunk of a 32x32 region in one walk down to its l1 node, used when loading.
+     * words use the region snapshot layout, bit = (x & 31) + ((z & 31) << 5)
+     */
+    public void markRegionCompleted(int rx, int rz, long[] words) {
+        int[] batchMasks = new int[64];
+        boolean any = false;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                int bit = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                int x = bit & 31;
+                int z = bit >> 5;
+                batchMasks[(x >> 2) + ((z >> 2) << 3)] |= 1 << ((x & 3) + ((z & 3) << 2));
+                any = true;
+            }
+        }
+        if (!any) return;
+
+        int bx = rx << REGION_SHIFT;
+        int bz = rz << REGION_SHIFT;
+        int rootX = bx >> ROOT_SIZE_SHIFT;
+        int rootZ = bz >> ROOT_SIZE_SHIFT;
+        Node root = roots.computeIfAbsent(ChunkPos.asLong(rootX, rootZ), k -> new Node(3, rootX, rootZ));
+        recursiveMarkRegion(root, bx, bz, batchMasks);
+    }
+
+    // returns how many chunks were not marked before
+    private int recursiveMarkRegion(Node node, int bx, int bz, int[] batchMasks) {
+        int added = 0;
+        if (node.level == 1) {
+            for (int idx = 0; idx < 64; idx++) {
+                int bits = batchMasks[idx];
+                if (bits == 0 || (node.fullMask & (1L << idx)) != 0) continue;
+                int shift = (idx & 3) << 4;
+                long prev = (long) MASKS.getAndBitwiseOr(node.masks, idx >> 2, (long) bits << shift);
+                int before = (int) (prev >>> shift) & 0xFFFF;
+                added += Integer.bitCount(bits & ~before);
+                if ((before | bits) == 0xFFFF) {
+                    node.markFull(idx);
+                }
+            }
+        } else {
+            int idx = getLocalIndex(node.level, bx, bz);
+            if ((node.fullMask & (1L << idx)) != 0) return 0;
+            Node child = childAt(node, idx);
+            if (child == null) return 0;
+            added = recursiveMarkRegion(child, bx, bz, batchMasks);
+            if (child.isFull()) {
+                node.markFull(idx);
+                CHILDREN.compareAndSet(node.children, idx, child, null);
+            }
+        }
+        if (added > 0) COMPLETED.getAndAdd(node, added);
+        return added;
+    }
+
+    // the child at idx, created if missing. null if the slot collapsed into a full bit meanwhile
+    private static Node childAt(Node node, int idx) {
+        Node child = node.child(idx);
+        if (child != null) return child;
+        // the slot is cleared only after the full bit is set, so re-check it
+        if ((node.fullMask & (1L << idx)) != 0) return null;
+        int cx = (node.x << NODE_SIZE_BITS) + (idx & 0x7);
+        int cz = (node.z << NODE_SIZE_BITS) + (idx >> 3);
+        Node created = new Node(node.level - 1, cx, cz);
+        Node witness = (Node) CHILDREN.compareAndExchange(node.children, idx, null, created);
+        return witness != null ? witness : created;
+    }
+
+    // returns true if the chunk was not marked before, every node on the path then counts it
+    private boolean recursiveMark(Node node, int bx, int bz, int bit) {
         int idx = getLocalIndex(node.level, bx, bz);
-        if ((node.fullMask & (1L << idx)) != 0) return;
+        if ((node.fullMask & (1L << idx)) != 0) return false;
 
+        boolean added;
         if (node.level == 1) {
-            Integer mask = (Integer) node.children.getOrDefault(idx, 0);
-            mask |= (1 << bit);
+            int shift = (idx & 3) << 4;
+            long prev = (long) MASKS.getAndBitwiseOr(node.masks, idx >> 2, 1L << (shift + bit));
+            added = (prev & (1L << (shift + bit))) == 0;
+            long mask = ((prev >>> shift) | (1L << bit)) & 0xFFFF;
             if (mask == 0xFFFF) {
-                synchronized(node) {
-                    node.fullMask |= (1L << idx);
-                    node.children.remove(idx);
-                }
-            } else {
-                node.children.put(idx, mask);
+                node.markFull(idx);
             }
         } else {
-            Node child = (Node) node.children.computeIfAbsent(idx, k -> {
-                int cx = (node.x << NODE_SIZE_BITS) + (k & 0x7);
-                int cz = (node.z << NODE_SIZE_BITS) + (k >> 3);
-                return new Node(node.level - 1, cx, cz);
-            });
-            recursiveMark(child, bx, bz, bit);
+            Node child = childAt(node, idx);
+            if (child == null) return false;
+            added = recursiveMark(child, bx, bz, bit);
             if (child.isFull()) {
-                synchronized(node) {
-                    node.fullMask |= (1L << idx);
-                    node.children.remove(idx);
+                // full subtrees collapse into a single bit
+                node.markFull(idx);
+                CHILDREN.compareAndSet(node.children, idx, child, null);
+            }
+        }
+        if (added) COMPLETED.getAndAdd(node, 1);
+        return added;
+    }
+
+    // true if the chunk is marked, a collapsed full bit on the way down counts as marked
+    boolean isChunkCompleted(int cx, int cz) {
+        int bx = cx >> BATCH_SIZE_SHIFT;
+        int bz = cz >> BATCH_SIZE_SHIFT;
+        Node node = roots.get(ChunkPos.asLong(bx >> ROOT_SIZE_SHIFT, bz >> ROOT_SIZE_SHIFT));
+        while (node != null) {
+            int idx = getLocalIndex(node.level, bx, bz);
+            if ((node.fullMask & (1L << idx)) != 0) return true;
+            if (node.level == 1) return (node.batchMask(idx) & (1 << ((cx & 3) + ((cz & 3) << 2)))) != 0;
+            node = node.child(idx);
+        }
+        return false;
+    }
+
+    /**
+     * walks every node and checks its cached count against its children, full bits and batch masks.
+     * only meaningful while no thread is marking, returns the total marked chunk count
+     */
+    long verifyCounts() {
+        long total = 0;
+        for (Node root : roots.values()) {
+            total += verifyCounts(root);
+        }
+        return total;
+    }
+
+    private static long verifyCounts(Node node) {
+        long childChunks = 16L << (6 * (node.level - 1));
+        long sum = 0;
+        for (int idx = 0; idx < 64; idx++) {
+            boolean full = (node.fullMask & (1L << idx)) != 0;
+            if (node.level == 1) {
+                int mask = node.batchMask(idx);
+                if (full && mask != 0xFFFF) {
+                    throw new IllegalStateException("full batch " + idx + " of " + describe(node) + " has mask " + Integer.toHexString(mask));
                 }
+                sum += Integer.bitCount(mask);
+            } else {
+                Node child = node.child(idx);
+                if (full && child != null) throw new IllegalStateException("full slot " + idx + " of " + describe(node) + " kept its child");
+                sum += full ? childChunks : child != null ? verifyCounts(child) : 0;
             }
         }
+        if (sum != node.completed) {
+            throw new IllegalStateException(describe(node) + " caches " + node.completed + " completed chunks, counted " + sum);
+        }
+        if (node.isFull() != (sum == childChunks * 64)) {
+            throw new IllegalStateException(describe(node) + " full mask disagrees with its count " + sum);
+        }
+        return sum;
+    }
+
+    private static String describe(Node node) {
+        return "l" + node.level + " node " + node.x + "," + node.z;
     }
 
-    public List<ChunkPos> findWork(ChunkPos center, int radiusChunks, Set<Long> trackedBatches) {
+    /**
+     * resumable scan position, walks batches ring by ring around a center
+     * only reset when the center or radius changes, or rewound when work is released
+     */
+    public static final class Cursor {
+        private volatile int cbx, cbz;
+        private int rb = -1;
+        private boolean square = false;
+        private boolean valid = false;
+        private int ring = 0;
+        private int index = 0;
+        private boolean hasRegion = false;
+        private int regionX, regionZ;
+        private final AtomicInteger rewindRing = new AtomicInteger(Integer.MAX_VALUE);
+
+        private void reset(int cbx, int cbz, int rb, boolean square) {
+            this.cbx = cbx;
+            this.cbz = cbz;
+            this.rb = rb;
+            this.square = square;
+            this.ring = 0;
+            this.index = 0;
+            this.valid = true;
+            this.hasRegion = false;
+            this.rewindRing.set(Integer.MAX_VALUE);
+        }
+
+        public void invalidate() {
+            valid = false;
+        }
+
+        // revisit a batch that was handed out but not completed
+        public void rewind(int bx, int bz) {
+            int r = Math.max(Math.abs(bx - cbx), Math.abs(bz - cbz));
+            rewindRing.accumulateAndGet(r, Math::min);
+        }
+    }
+
+    /**
+     * next batch for the cursor, in ring order around the center, inside a circle or a square.
+     * with a locality band > 0 the cursor keeps draining the region of its last batch
+     * as long as the region's batches are at most that many rings past the ring walk
+     */
+    public List<ChunkPos> findWork(Cursor cursor, ChunkPos center, int radiusChunks, boolean square, LongPredicate claimBatch, int localityBand) {
         int cbx = center.x >> BATCH_SIZE_SHIFT;
         int cbz = center.z >> BATCH_SIZE_SHIFT;
         int rb = (radiusChunks + 3) >> BATCH_SIZE_SHIFT;
 
-        PriorityQueue<WorkItem> queue = new PriorityQueue<>(Comparator.comparingDouble(i -> i.distSq));
-
-        int rootSize = 1 << ROOT_SIZE_SHIFT;
-        int rbxMin = (cbx - rb) >> ROOT_SIZE_SHIFT;
-        int rbxMax = (cbx + rb) >> ROOT_SIZE_SHIFT;
-        int rbzMin = (cbz - rb) >> ROOT_SIZE_SHIFT;
-        int rbzMax = (cbz + rb) >> ROOT_SIZE_SHIFT;
+        if (!cursor.valid || cursor.cbx != cbx || cursor.cbz != cbz || cursor.rb != rb || cursor.square != square) {
+            cursor.reset(cbx, cbz, rb, square);
+        }
+        int rewind = cursor.rewindRing.getAndSet(Integer.MAX_VALUE);
+        if (rewind <= cursor.ring) {
+            cursor.ring = rewind;
+            cursor.index = 0;
+        }
 
-        for (int rx = rbxMin; rx <= rbxMax; rx++) {
-            for (int rz = rbzMin; rz <= rbzMax; rz++) {
-                Node root = roots.get(ChunkPos.asLong(rx, rz));
-                // check empty space even if node is null
-                double dSq = getDistSq(rx, rz, rootSize, cbx, cbz);
-                if (dSq <= (double)rb * rb) {
-                    queue.add(new WorkItem(root, 3, rx, rz, dSq));
-                }
-            }
+        long rbSq = (long) rb * rb;
+        if (localityBand > 0 && cursor.hasRegion) {
+            List<ChunkPos> local = findInRegion(cursor, rbSq, cursor.ring + localityBand, claimBatch);
+            if (local != null) return local;
+            cursor.hasRegion = false;
         }
 
-        while (!queue.isEmpty()) {
-            WorkItem item = queue.poll();
-            if (item.node != null && item.node.isFull()) continue;
-
-            if (item.level == 0) {
-                // found a batch
-                long key = ChunkPos.asLong(item.x, item.z);
-                if (trackedBatches.add(key)) {
-                    List<ChunkPos> batch = new ArrayList<>(16);
-                    for (int lz = 0; lz < 4; lz++) {
-                        for (int lx = 0; lx < 4; lx++) {
-                            batch.add(new ChunkPos((item.x << 2) + lx, (item.z << 2) + lz));
-                        }
-                    }
-                    return batch;
+        while (cursor.ring <= rb) {
+            int r = cursor.ring;
+
+            if (r == 0) {
+                cursor.ring = 1;
+                cursor.index = 0;
+                if (completedSpan(cbx, cbz) == 0 && claimBatch.test(ChunkPos.asLong(cbx, cbz))) {
+                    return handOut(cursor, cbx, cbz);
                 }
                 continue;
             }
 
-            int childLevel = item.level - 1;
-            int childSize = 1 << (3 * childLevel);
-            
-            for (int i = 0; i < 64; i++) {
-                if (item.node != null && (item.node.fullMask & (1L << i)) != 0) continue;
-
-                int cx = (item.x << 3) + (i & 7);
-                int cz = (item.z << 3) + (i >> 3);
-                
-                double dSq = getDistSq(cx, cz, childSize, cbx, cbz);
-                if (dSq <= (double)rb * rb) {
-                    Object child = (item.node == null) ? null : item.node.children.get(i);
-                    Node childNode = (child instanceof Node) ? (Node) child : null;
-                    queue.add(new WorkItem(childNode, childLevel, cx, cz, dSq));
+            // each side holds 2r cells, u runs from -r to r - 1 along the direction of travel
+            int sideLen = 2 * r;
+            int halfWidth = square ? r : (int) Math.sqrt((double) (rbSq - (long) r * r));
+            while (cursor.index < 4 * sideLen) {
+                int side = cursor.index / sideLen;
+                int o = cursor.index % sideLen;
+
+                // clamp to the part of the side inside the circle
+                if (o < r - halfWidth) {
+                    cursor.index = side * sideLen + (r - halfWidth);
+                    continue;
+                }
+                if (o > r + halfWidth) {
+                    cursor.index = (side + 1) * sideLen;
+                    continue;
+                }
+
+                int u = o - r;
+                int bx, bz, along, dir;
+                switch (side) {
+                    case 0 -> { bx = cbx + u; bz = cbz - r; along = bx; dir = 1; }
+                    case 1 -> { bx = cbx + r; bz = cbz + u; along = bz; dir = 1; }
+                    case 2 -> { bx = cbx - u; bz = cbz + r; along = bx; dir = -1; }
+                    default -> { bx = cbx - r; bz = cbz - u; along = bz; dir = -1; }
+                }
+
+                // jump over the completed block this cell sits in
+                int span = completedSpan(bx, bz);
+                if (span > 0) {
+                    int blockStart = along & -span;
+                    int steps = dir > 0 ? blockStart + span - along : along - blockStart + 1;
+                    cursor.index = side * sideLen + Math.min(o + steps, sideLen);
+                    continue;
+                }
+
+                cursor.index++;
+                if (claimBatch.test(ChunkPos.asLong(bx, bz))) {
+                    return handOut(cursor, bx, bz);
                 }
             }
+            cursor.ring++;
+            cursor.index = 0;
         }
         return null;
     }
 
-    private double getDistSq(int nx, int nz, int size, int cbx, int cbz) {
-        // distance to nearest edge of node
-        double dx = Math.max(0, Math.max((double)nx * size - cbx, (double)cbx - (nx + 1) * size + 1));
-        double dz = Math.max(0, Math.max((double)nz * size - cbz, (double)cbz - (nz + 1) * size + 1));
-        return dx * dx + dz * dz;
+    private List<ChunkPos> handOut(Cursor cursor, int bx, int bz) {
+        cursor.hasRegion = true;
+        cursor.regionX = bx >> REGION_SHIFT;
+        cursor.regionZ = bz >> REGION_SHIFT;
+        return createBatch(bx, bz);
+    }
+
+    // first open batch of the cursor's region inside the shape and the ring band
+    private List<ChunkPos> findInRegion(Cursor cursor, long rbSq, int maxRing, LongPredicate claimBatch) {
+        int baseX = cursor.regionX << REGION_SHIFT;
+        int baseZ = cursor.regionZ << REGION_SHIFT;
+        if (completedSpan(baseX, baseZ) > (1 << REGION_SHIFT) - 1) return null;
+
+        int size = 1 << REGION_SHIFT;
+        for (int i = 0; i < size * size; i++) {
+            int bx = baseX + (i & (size - 1));
+            int bz = baseZ + (i >> REGION_SHIFT);
+            int dx = bx - cursor.cbx;
+            int dz = bz - cursor.cbz;
+            if (Math.max(Math.abs(dx), Math.abs(dz)) > maxRing) continue;
+            if (Math.max(Math.abs(dx), Math.abs(dz)) > cursor.rb) continue;
+            if (!cursor.square && (long) dx * dx + (long) dz * dz > rbSq) continue;
+            if (completedSpan(bx, bz) != 0) continue;
+            if (claimBatch.test(ChunkPos.asLong(bx, bz))) {
+                return createBatch(bx, bz);
+            }
+        }
+        return null;
+    }
+
+    // side length in batches of the largest completed block holding this batch, 0 if incomplete
+    private int completedSpan(int bx, int bz) {
+        Node node = roots.get(ChunkPos.asLong(bx >> ROOT_SIZE_SHIFT, bz >> ROOT_SIZE_SHIFT));
+        if (node == null) return 0;
+        if (node.isFull()) return 1 << ROOT_SIZE_SHIFT;
+
+        while (true) {
+            int idx = getLocalIndex(node.level, bx, bz);
+            if ((node.fullMask & (1L << idx)) != 0) return 1 << (3 * (node.level - 1));
+            if (node.level == 1) return 0;
+            Node child = node.child(idx);
+            if (child == null) return 0;
+            node = child;
+        }
+    }
+
+    private List<ChunkPos> createBatch(int bx, int bz) {
+        List<ChunkPos> batch = new ArrayList<>(16);
+        for (int lz = 0; lz < 4; lz++) {
+            for (int lx = 0; lx < 4; lx++) {
+                batch.add(new ChunkPos((bx << 2) + lx, (bz << 2) + lz));
+            }
+        }
+        return batch;
     }
 
     private int getLocalIndex(int level, int bx, int bz) {
@@ -154,94 +424,106 @@ public class DistanceGraph {
         return lx + (lz << 3);
     }
 
-    @SuppressWarnings("unused")
+    // circle or square around a batch, in batch coords
+    private record Bound(int cbx, int cbz, int rb, boolean square) {
+        // true if any batch of the block [x0, x0 + size) x [z0, z0 + size) lies inside
+        boolean touches(long x0, long z0, int size) {
+            long dx = Math.max(0, Math.max(x0 - cbx, cbx - (x0 + size - 1)));
+            long dz = Math.max(0, Math.max(z0 - cbz, cbz - (z0 + size - 1)));
+            return square ? dx <= rb && dz <= rb : dx * dx + dz * dz <= (long) rb * rb;
+        }
+
+        // true if every batch of the block lies inside
+        boolean contains(long x0, long z0, int size) {
+            long dx = Math.max(Math.abs(x0 - cbx), Math.abs(x0 + size - 1 - cbx));
+            long dz = Math.max(Math.abs(z0 - cbz), Math.abs(z0 + size - 1 - cbz));
+            return square ? dx <= rb && dz <= rb : dx * dx + dz * dz <= (long) rb * rb;
+        }
+
+        // batches of the block inside, one closed form span per column
+        long count(long x0, long z0, int size) {
+            long minX = Math.max(x0, cbx - rb), maxX = Math.min(x0 + size - 1, cbx + rb);
+            if (minX > maxX) return 0;
+            if (square) {
+                long minZ = Math.max(z0, cbz - rb), maxZ = Math.min(z0 + size - 1, cbz + rb);
+                return (maxX - minX + 1) * Math.max(0, maxZ - minZ + 1);
+            }
+            long total = 0;
+            long rbSq = (long) rb * rb;
+            for (long x = minX; x <= maxX; x++) {
+                long dx = x - cbx;
+                long half = (long) Math.sqrt((double) (rbSq - dx * dx));
+                long lo = Math.max(z0, cbz - half), hi = Math.min(z0 + size - 1, cbz + half);
+                if (hi >= lo) total += hi - lo + 1;
+            }
+            return total;
+        }
+    }
+
+    // true if the chunk is one countMissingInRange counts for the shape
+    public static boolean inRange(ChunkPos center, int radiusChunks, boolean square, int cx, int cz) {
+        long dx = Math.abs((cx >> BATCH_SIZE_SHIFT) - (center.x >> BATCH_SIZE_SHIFT));
+        long dz = Math.abs((cz >> BATCH_SIZE_SHIFT) - (center.z >> BATCH_SIZE_SHIFT));
+        int rb = (radiusChunks + 3) >> BATCH_SIZE_SHIFT;
+        return square ? dx <= rb && dz <= rb : dx * dx + dz * dz <= (long) rb * rb;
+    }
+
     public int countMissingInRange(ChunkPos center, int radiusChunks) {
+        return countMissingInRange(center, radiusChunks, false);
+    }
+
+    /**
+     * missing chunks inside the shape, safe from any thread.
+     * nodes fully inside use their cached count and untouched nodes a closed form,
+     * so only nodes on the boundary are walked
+     */
+    public int countMissingInRange(ChunkPos center, int radiusChunks, boolean square) {
         int cbx = center.x >> BATCH_SIZE_SHIFT;
         int cbz = center.z >> BATCH_SIZE_SHIFT;
         int rb = (radiusChunks + 3) >> BATCH_SIZE_SHIFT;
+        Bound bound = new Bound(cbx, cbz, rb, square);
 
-        int rootSize = 1 << ROOT_SIZE_SHIFT;
         int rbxMin = (cbx - rb) >> ROOT_SIZE_SHIFT;
         int rbxMax = (cbx + rb) >> ROOT_SIZE_SHIFT;
         int rbzMin = (cbz - rb) >> ROOT_SIZE_SHIFT;
         int rbzMax = (cbz + rb) >> ROOT_SIZE_SHIFT;
 
-        int count = 0;
+        long count = 0;
         for (int rx = rbxMin; rx <= rbxMax; rx++) {
             for (int rz = rbzMin; rz <= rbzMax; rz++) {
                 Node root = roots.get(ChunkPos.asLong(rx, rz));
-                count += recursiveCount(root, 3, rx, rz, cbx, cbz, rb);
+                count += countMissing(root, 3, rx, rz, bound);
             }
         }
-        return count;
+        return (int) Math.min(Integer.MAX_VALUE, count);
     }
 
-    private int recursiveCount(Node node, int level, int nx, int nz, int cbx, int cbz, int rb) {
+    private long countMissing(Node node, int level, int nx, int nz, Bound bound) {
         int size = 1 << (3 * level);
-        if (getDistSq(nx, nz, size, cbx, cbz) > (double)rb * rb) return 0;
-        if (node != null && node.isFull()) return 0;
-
-        if (level == 0) return 1; // batch
+        long x0 = (long) nx * size;
+        long z0 = (long) nz * size;
+        if (!bound.touches(x0, z0, size)) return 0;
+        if (node == null) return bound.count(x0, z0, size) * 16;
+        if (node.isFull()) return 0;
+        if (bound.contains(x0, z0, size)) return (long) size * size * 16 - node.completed;
 
-        if (node == null) {
-            // estimate chunks in circle inside empty node
-            if (level == 1) {
-                int c = 0;
-                for (int i = 0; i < 64; i++) {
-                    int bx = (nx << 3) + (i & 7);
-                    int bz = (nz << 3) + (i >> 3);
-                    if (getDistSq(bx, bz, 1, cbx, cbz) <= (double)rb * rb) c += 16;
-                }
-                return c;
-            }
-            // higher level, recurse null node
-            int c = 0;
-            for (int i = 0; i < 64; i++) {
-                int cx = (nx << 3) + (i & 7);
-                int cz = (nz << 3) + (i >> 3);
-                c += recursiveCount(null, level - 1, cx, cz, cbx, cbz, rb);
-            }
-            return c;
-        }
-
-        // l1 partial
-        if (level == 1) {
-            int c = 0;
-            for (int i = 0; i < 64; i++) {
-                if ((node.fullMask & (1L << i)) != 0) continue;
-                int bx = (nx << 3) + (i & 7);
-                int bz = (nz << 3) + (i >> 3);
-                if (getDistSq(bx, bz, 1, cbx, cbz) <= (double)rb * rb) {
-                    Integer mask = (Integer) node.children.getOrDefault(i, 0);
-                    c += (16 - Integer.bitCount(mask));
-                }
-            }
-            return c;
-        }
-
-        // higher level partial
-        int c = 0;
+        long c = 0;
         for (int i = 0; i < 64; i++) {
             if ((node.fullMask & (1L << i)) != 0) continue;
             int cx = (nx << 3) + (i & 7);
             int cz = (nz << 3) + (i >> 3);
-            Object child = node.children.get(i);
-            Node childNode = (child instanceof Node) ? (Node) child : null;
-            c += recursiveCount(childNode, level - 1, cx, cz, cbx, cbz, rb);
+            if (level == 1) {
+                if (bound.touches(cx, cz, 1)) c += 16 - Integer.bitCount(node.batchMask(i));
+                continue;
+            }
+            Node child = node.child(i);
+            // a missing child may have just collapsed into a full bit
+            if (child == null && (node.fullMask & (1L << i)) != 0) continue;
+            c += countMissing(child, level - 1, cx, cz, bound);
         }
         return c;
     }
 
-    private static class WorkItem {
-        final Node node;
-        final int level;
-        final int x, z;
-        final double distSq;
-        WorkItem(Node node, int level, int x, int z, double distSq) {
-            this.node = node; this.level = level; this.x = x; this.z = z; this.distSq = distSq;
-        }
-    }
-
     public static long getBatchKey(int cx, int cz) {
         return ChunkPos.asLong(cx >> 2, cz >> 2);
     }
@@ -0,0 +1,171 @@
+package com.ethan.voxyworldgenv2.core;
+
+import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongPredicate;
+
+/**
+ * chunks that failed to generate, with their failure count, last error and when they may run again.
+ * every failure doubles the wait, after failureQuarantineThreshold failures the chunk is quarantined
+ * and never dispatched again until cleared. only the quarantine is saved, next to the completion file,
+ * on the checkpoint thread
+ * header: magic, version, count. entry: chunk key, failures, last error
+ */
+public final class FailureRegistry {
+    private static final int MAGIC = 0x56584751; // VXGQ
+    private static final int VERSION = 1;
+    private static final long MAX_BACKOFF_MILLIS = 10 * 60 * 1000L;
+    // keeps the error well below the 64 KiB writeUTF limit
+    private static final int MAX_ERROR_LENGTH = 256;
+
+    // retryAt is 0 once the chunk was handed back for a retry
+    public record Failure(long pos, int count, String lastError, long retryAt, boolean quarantined) {}
+
+    private final Map<Long, Failure> failures = new ConcurrentHashMap<>();
+    private final Path path;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    // the saved quarantine is read by load, off the server thread
+    FailureRegistry(Path path) {
+        this.path = path;
+    }
+
+    Failure recordFailure(long pos, String reason) {
+        String error = reason.length() > MAX_ERROR_LENGTH ? reason.substring(0, MAX_ERROR_LENGTH) : reason;
+        long now = System.currentTimeMillis();
+        int threshold = Math.max(1, Config.DATA.failureQuarantineThreshold);
+        long base = Math.max(0, Config.DATA.failureBackoffSeconds) * 1000L;
+        Failure failure = failures.compute(pos, (k, previous) -> {
+            int count = previous == null ? 1 : previous.count() + 1;
+            long backoff = Math.min(MAX_BACKOFF_MILLIS, base << Math.min(count - 1, 16));
+            return new Failure(k, count, error, now + backoff, count >= threshold);
+        });
+        if (failure.quarantined()) requestSave();
+        return failure;
+    }
+
+    void recordSuccess(long pos) {
+        if (failures.isEmpty()) return;
+        Failure removed = failures.remove(pos);
+        if (removed != null && removed.quarantined()) requestSave();
+    }
+
+    // false while the chunk backs off or is quarantined
+    boolean isEligible(long pos) {
+        if (failures.isEmpty()) return true;
+        Failure failure = failures.get(pos);
+        return failure == null || (!failure.quarantined() && failure.retryAt() <= System.currentTimeMillis());
+    }
+
+    // chunks whose backoff ran out, each one is returned once per failure
+    LongList pollDue() {
+        LongList due = new LongArrayList();
+        if (failures.isEmpty()) return due;
+        long now = System.currentTimeMillis();
+        for (Failure failure : failures.values()) {
+            if (failure.quarantined() || failure.retryAt() == 0 || failure.retryAt() > now) continue;
+            Failure released = new Failure(failure.pos(), failure.count(), failure.lastError(), 0, false);
+            if (failures.replace(failure.pos(), failure, released)) due.add(failure.pos());
+        }
+        return due;
+    }
+
+    public List<Failure> getQuarantined() {
+        List<Failure> result = new ArrayList<>();
+        for (Failure failure : failures.values()) {
+            if (failure.quarantined()) result.add(failure);
+        }
+        result.sort(Comparator.comparingInt(Failure::count).reversed());
+        return result;
+    }
+
+    public int getQuarantinedCount() {
+        int count = 0;
+        for (Failure failure : failures.values()) {
+            if (failure.quarantined()) count++;
+        }
+        return count;
+    }
+
+    // quarantined chunks the predicate accepts, e.g. those inside a job area
+    public int countQuarantined(LongPredicate filter) {
+        int count = 0;
+        for (Failure failure : failures.values()) {
+            if (failure.quarantined() && filter.test(failure.pos())) count++;
+        }
+        return count;
+    }
+
+    // forgets the failures of the given chunk, or of every quarantined chunk when pos is null
+    LongList clearQuarantine(Long pos) {
+        LongList cleared = new LongArrayList();
+        for (Failure failure : failures.values()) {
+            if (!failure.quarantined() || (pos != null && failure.pos() != pos)) continue;
+            if (failures.remove(failure.pos(), failure)) cleared.add(failure.pos());
+        }
+        if (!cleared.isEmpty()) requestSave();
+        return cleared;
+    }
+
+    void load() {
+        if (!Files.exists(path)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a voxy quarantine file: " + path);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported voxy quarantine version " + version);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long pos = in.readLong();
+                failures.put(pos, new Failure(pos, in.readInt(), in.readUTF(), 0, true));
+            }
+            if (count > 0) {
+                VoxyWorldGenV2.LOGGER.info("loaded {} quarantined chunks from {}", count, path.getFileName());
+            }
+        } catch (IOException e) {
+            VoxyWorldGenV2.LOGGER.error("failed to load chunk quarantine {}", path.getFileName(), e);
+        }
+    }
+
+    // changes made while a save is queued are picked up by that save
+    private void requestSave() {
+        if (dirty.compareAndSet(false, true)) CheckpointWriter.execute(this::save);
+    }
+
+    // quarantines change rarely, the whole file is rewritten each time
+    private synchronized void save() {
+        dirty.set(false);
+        List<Failure> quarantined = getQuarantined();
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (quarantined.isEmpty()) {
+                Files.deleteIfExists(path);
+                return;
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(quarantined.size());
+                for (Failure failure : quarantined) {
+                    out.writeLong(failure.pos());
+                    out.writeInt(failure.count());
+                    out.writeUTF(failure.lastError());
+                }
+            }
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            VoxyWorldGenV2.LOGGER.error("failed to save chunk quarantine {}", path.getFileName(), e);
+        }
+    }
+}
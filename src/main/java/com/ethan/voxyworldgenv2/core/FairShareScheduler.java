@@ -0,0 +1,219 @@
+package com.ethan.voxyworldgenv2.core;
+
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * shares generation work between players
+ * nearby players are merged into one frontier, pregeneration jobs add fixed frontiers.
+ * frontiers are served by stride scheduling weighted by their missing chunk count and priority
+ */
+public class FairShareScheduler {
+    private static final long STRIDE = 1L << 20;
+    // how long a frontier that ran dry with chunks still missing waits before walking its shape again
+    private static final long RESCAN_NANOS = 1_000_000_000L;
+
+    private volatile List<Frontier> frontiers = List.of();
+
+    // a player's chunk and the chunk it is predicted to reach, frontiers center on the prediction
+    public record Anchor(ChunkPos position, ChunkPos predicted) {}
+
+    // fixed area of a pregeneration job, always generated at full detail
+    public record Area(ChunkPos center, int radius, boolean square, int priority) {}
+
+    public static class Frontier {
+        private final ChunkPos center;
+        private final int radius;
+        private final boolean square;
+        private final boolean job;
+        private final boolean full;
+        private final int weight;
+        private final DistanceGraph.Cursor cursor;
+        private final AtomicInteger remaining = new AtomicInteger(0);
+        private volatile boolean exhausted = false;
+        private volatile long rescanAt = 0;
+        private long pass = 0;
+
+        Frontier(ChunkPos center, int radius, boolean square, boolean job, boolean full, int weight, DistanceGraph.Cursor cursor) {
+            this.center = center;
+            this.radius = radius;
+            this.square = square;
+            this.job = job;
+            this.full = full;
+            this.weight = Math.max(1, weight);
+            this.cursor = cursor;
+        }
+
+        public ChunkPos center() { return center; }
+        public DistanceGraph.Cursor cursor() { return cursor; }
+        public int radius() { return radius; }
+        public boolean square() { return square; }
+        public boolean isJob() { return job; }
+        // true if lod chunks do not count, everything it finds is generated at full detail
+        public boolean isFull() { return full; }
+        public int remaining() { return Math.max(0, remaining.get()); }
+        public boolean isExhausted() { return exhausted; }
+    }
+
+    // rebuild clusters, call from the server thread. a detail radius above 0 adds a full detail frontier
+    // per cluster, it upgrades lod chunks the players came close to
+    public void rebuild(Collection<Anchor> anchors, int radius, int detailRadius, Collection<Area> jobAreas) {
+        int mergeDist = Math.max(8, radius / 4);
+        List<List<Anchor>> clusters = new ArrayList<>();
+
+        for (Anchor anchor : anchors) {
+            List<Anchor> target = null;
+            for (List<Anchor> cluster : clusters) {
+                if (distSq(centroid(cluster), anchor.predicted()) <= (long) mergeDist * mergeDist) {
+                    target = cluster;
+                    break;
+                }
+            }
+            if (target == null) {
+                target = new ArrayList<>();
+                clusters.add(target);
+            }
+            target.add(anchor);
+        }
+
+        List<Frontier> previous = frontiers;
+        List<Frontier> result = new ArrayList<>(clusters.size());
+        for (List<Anchor> cluster : clusters) {
+            ChunkPos center = centroid(cluster);
+            // grow the radius so the merged region covers every member's prediction, the rings then
+            // expand from the predicted center and reach ahead of the players first
+            int spread = 0;
+            int behind = 0;
+            for (Anchor anchor : cluster) {
+                spread = Math.max(spread, (int) Math.ceil(Math.sqrt(distSq(center, anchor.predicted()))));
+                behind = Math.max(behind, (int) Math.ceil(Math.sqrt(distSq(center, anchor.position()))));
+            }
+            // the lead only widens the circle by an eighth of the radius, about 27% more area at most,
+            // the far edge behind a fast player is left for when it slows down
+            spread += Math.min(Math.max(0, behind - spread), radius / 8);
+
+            result.add(new Frontier(center, radius + spread, false, false, false, 1,
+                    cursorFor(previous, center, radius + spread, false, false)));
+            if (detailRadius > 0) {
+                int detail = Math.min(detailRadius, radius) + spread;
+                result.add(new Frontier(center, detail, false, false, true, 1, cursorFor(previous, center, detail, false, true)));
+            }
+        }
+        for (Area area : jobAreas) {
+            result.add(new Frontier(area.center(), area.radius(), area.square(), true, true, area.priority(),
+                    cursorFor(previous, area.center(), area.radius(), area.square(), true)));
+        }
+        this.frontiers = List.copyOf(result);
+    }
+
+    // keep the scan position of frontiers that did not move
+    private static DistanceGraph.Cursor cursorFor(List<Frontier> previous, ChunkPos center, int radius, boolean square, boolean full) {
+        for (Frontier old : previous) {
+            if (old.center.equals(center) && old.radius == radius && old.square == square && old.full == full) {
+                return old.cursor;
+            }
+        }
+        return new DistanceGraph.Cursor();
+    }
+
+    public void clear() {
+        this.frontiers = List.of();
+    }
+
+    public boolean isEmpty() {
+        return frontiers.isEmpty();
+    }
+
+    public List<Frontier> getFrontiers() {
+        return frontiers;
+    }
+
+    // frontiers with work, most deserving first. call from the worker thread, it owns the cursors
+    public List<Frontier> order() {
+        List<Frontier> snapshot = frontiers;
+        long now = System.nanoTime();
+        for (Frontier frontier : snapshot) {
+            if (frontier.exhausted && frontier.rescanAt != 0 && now - frontier.rescanAt >= 0) {
+                frontier.rescanAt = 0;
+                frontier.cursor.invalidate();
+                frontier.exhausted = false;
+            }
+        }
+        if (snapshot.size() == 1) {
+            return snapshot.get(0).exhausted ? List.of() : snapshot;
+        }
+        List<Frontier> ordered = new ArrayList<>(snapshot.size());
+        for (Frontier frontier : snapshot) {
+            if (!frontier.exhausted) ordered.add(frontier);
+        }
+        ordered.sort(Comparator.comparingLong(f -> f.pass));
+        return ordered;
+    }
+
+    // advance the frontier's pass, frontiers with more missing chunks or a higher priority advance slower
+    public void charge(Frontier frontier, int dispatched) {
+        int remaining = frontier.remaining.addAndGet(-dispatched);
+        frontier.pass += STRIDE * Math.max(1, dispatched) / ((long) Math.max(1, remaining) * frontier.weight);
+
+        // keep new and idle frontiers from starving the rest
+        long minPass = Long.MAX_VALUE;
+        for (Frontier f : frontiers) {
+            if (!f.exhausted) minPass = Math.min(minPass, f.pass);
+        }
+        for (Frontier f : frontiers) {
+            if (f.pass < minPass) f.pass = minPass;
+        }
+    }
+
+    // with chunks still missing, e.g. in batches another frontier owned when the cursor passed,
+    // the frontier walks its whole shape again after a short wait instead of staying done
+    public void markExhausted(Frontier frontier, boolean missing) {
+        frontier.rescanAt = missing ? System.nanoTime() + RESCAN_NANOS : 0;
+        frontier.exhausted = true;
+    }
+
+    // hand a released chunk back to the frontiers that cover it, e.g. after a failure.
+    // with fullOnly set the chunk is done at lod detail and lod frontiers keep their position
+    public void release(ChunkPos pos, boolean fullOnly) {
+        int bx = pos.x >> 2;
+        int bz = pos.z >> 2;
+        for (Frontier frontier : frontiers) {
+            if (fullOnly && !frontier.full) continue;
+            if (!DistanceGraph.inRange(frontier.center, frontier.radius, frontier.square, pos.x, pos.z)) continue;
+            frontier.cursor.rewind(bx, bz);
+            frontier.exhausted = false;
+        }
+    }
+
+    public void setRemaining(Frontier frontier, int remaining) {
+        frontier.remaining.set(remaining);
+    }
+
+    public int getTotalRemaining() {
+        int total = 0;
+        for (Frontier frontier : frontiers) {
+            total += frontier.remaining();
+        }
+        return total;
+    }
+
+    private static ChunkPos centroid(List<Anchor> cluster) {
+        long sx = 0, sz = 0;
+        for (Anchor anchor : cluster) {
+            sx += anchor.predicted().x;
+            sz += anchor.predicted().z;
+        }
+        return new ChunkPos((int) Math.floorDiv(sx, cluster.size()), (int) Math.floorDiv(sz, cluster.size()));
+    }
+
+    private static long distSq(ChunkPos a, ChunkPos b) {
+        long dx = a.x - b.x;
+        long dz = a.z - b.z;
+        return dx * dx + dz * dz;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ethan.voxyworldgenv2.core;
+
+import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import com.ethan.voxyworldgenv2.mixin.ServerChunkCacheMixin;
+import net.minecraft.server.level.ServerChunkCache;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * main thread work for generation, drained once per tick under a time budget
+ * instead of competing with the game for the server executor.
+ * ticket changes made while draining are applied with one distance manager update per cache
+ */
+public final class MainThreadQueue {
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    // main thread only, filled by tasks while draining
+    private final Map<ServerChunkCache, List<Runnable>> pendingUpdates = new IdentityHashMap<>();
+
+    public void submit(Runnable task) {
+        tasks.add(task);
+        size.incrementAndGet();
+    }
+
+    // mark the cache for a distance manager update, the action runs after it
+    public void afterDistanceUpdate(ServerChunkCache cache, Runnable action) {
+        pendingUpdates.computeIfAbsent(cache, c -> new ArrayList<>()).add(action);
+    }
+
+    public void markDistanceUpdate(ServerChunkCache cache) {
+        pendingUpdates.computeIfAbsent(cache, c -> new ArrayList<>());
+    }
+
+    // returns the number of tasks run
+    public int drain(long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int ran = 0;
+        Runnable task;
+        // always make progress, even with a zero budget
+        while ((ran == 0 || System.nanoTime() < deadline) && (task = tasks.poll()) != null) {
+            size.decrementAndGet();
+            ran++;
+            try {
+                task.run();
+            } catch (Exception e) {
+                VoxyWorldGenV2.LOGGER.error("error in main thread generation task", e);
+            }
+        }
+
+        if (!pendingUpdates.isEmpty()) {
+            // tickets were already changed, so these run regardless of the budget
+            for (Map.Entry<ServerChunkCache, List<Runnable>> entry : pendingUpdates.entrySet()) {
+                ((ServerChunkCacheMixin) entry.getKey()).invokeRunDistanceManagerUpdates();
+                for (Runnable action : entry.getValue()) {
+                    try {
+                        action.run();
+                    } catch (Exception e) {
+                        VoxyWorldGenV2.LOGGER.error("error in main thread generation task", e);
+                    }
+                }
+            }
+            pendingUpdates.clear();
+        }
+        return ran;
+    }
+
+    public int size() {
+        return Math.max(0, size.get());
+    }
+
+    public void clear() {
+        tasks.clear();
+        size.set(0);
+        pendingUpdates.clear();
+    }
+}
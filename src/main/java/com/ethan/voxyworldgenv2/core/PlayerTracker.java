@@ -1,40 +1,115 @@
 package com.ethan.voxyworldgenv2.core;
 
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 public class PlayerTracker {
     private static final PlayerTracker INSTANCE = new PlayerTracker();
+    // per tick weight of the newest movement sample
+    private static final double SMOOTHING = 0.1;
+    // anything faster is a teleport, not movement
+    private static final double MAX_BLOCKS_PER_TICK = 64.0;
+
     private final Set<ServerPlayer> players;
-    
+    private final Map<UUID, Motion> motions = new ConcurrentHashMap<>();
+
+    // smoothed horizontal velocity in blocks per tick, only touched on the server thread
+    private static final class Motion {
+        Level level;
+        double x, z;
+        double vx, vz;
+        ChunkPos chunk;
+    }
+
     private PlayerTracker() {
         this.players = ConcurrentHashMap.newKeySet();
     }
-    
+
     public static PlayerTracker getInstance() {
         return INSTANCE;
     }
-    
+
     public void addPlayer(ServerPlayer player) {
         players.add(player);
     }
-    
+
     public void removePlayer(ServerPlayer player) {
         players.remove(player);
+        motions.remove(player.getUUID());
     }
-    
+
     public void clear() {
         players.clear();
+        motions.clear();
     }
-    
+
+    /**
+     * sample every player's movement, call once per server tick.
+     * reports players that crossed into another chunk of the same dimension with their previous chunk
+     */
+    public void tick(BiConsumer<ServerPlayer, ChunkPos> onChunkChanged) {
+        for (ServerPlayer player : players) {
+            Motion motion = motions.get(player.getUUID());
+            ChunkPos chunk = player.chunkPosition();
+            if (motion == null || motion.level != player.level()) {
+                motion = new Motion();
+                motion.level = player.level();
+                motion.x = player.getX();
+                motion.z = player.getZ();
+                motion.chunk = chunk;
+                motions.put(player.getUUID(), motion);
+                continue;
+            }
+
+            double dx = player.getX() - motion.x;
+            double dz = player.getZ() - motion.z;
+            if (Math.abs(dx) > MAX_BLOCKS_PER_TICK || Math.abs(dz) > MAX_BLOCKS_PER_TICK) {
+                motion.vx = 0;
+                motion.vz = 0;
+            } else {
+                motion.vx += (dx - motion.vx) * SMOOTHING;
+                motion.vz += (dz - motion.vz) * SMOOTHING;
+                if (!chunk.equals(motion.chunk)) {
+                    onChunkChanged.accept(player, motion.chunk);
+                }
+            }
+            motion.x = player.getX();
+            motion.z = player.getZ();
+            motion.chunk = chunk;
+        }
+    }
+
+    // chunk the player will be in after the given time at its smoothed velocity, capped to maxChunks away
+    public ChunkPos predictChunk(ServerPlayer player, double seconds, int maxChunks) {
+        ChunkPos current = player.chunkPosition();
+        Motion motion = motions.get(player.getUUID());
+        if (motion == null || seconds <= 0 || maxChunks <= 0) return current;
+
+        double ticks = seconds * 20.0;
+        double sx = motion.vx * ticks / 16.0;
+        double sz = motion.vz * ticks / 16.0;
+        double length = Math.sqrt(sx * sx + sz * sz);
+        if (length < 1.0) return current;
+        if (length > maxChunks) {
+            sx *= maxChunks / length;
+            sz *= maxChunks / length;
+        }
+        return new ChunkPos(current.x + (int) Math.round(sx), current.z + (int) Math.round(sz));
+    }
+
     public Collection<ServerPlayer> getPlayers() {
         return Collections.unmodifiableCollection(players);
     }
-    
+
     public int getPlayerCount() {
         return players.size();
     }
@@ -0,0 +1,78 @@
+package com.ethan.voxyworldgenv2.core;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.commands.arguments.coordinates.ColumnPosArgument;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ColumnPos;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.List;
+
+/**
+ * /voxyworldgen quarantine list|clear [pos]
+ * works on the dimension of the command source, positions are block coordinates
+ */
+public final class QuarantineCommands {
+    private static final int LIST_LIMIT = 20;
+
+    private QuarantineCommands() {}
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("voxyworldgen")
+            .requires(source -> source.hasPermission(2))
+            .then(Commands.literal("quarantine")
+                .then(Commands.literal("list")
+                    .executes(QuarantineCommands::list))
+                .then(Commands.literal("clear")
+                    .executes(ctx -> clear(ctx, null))
+                    .then(Commands.argument("pos", ColumnPosArgument.columnPos())
+                        .executes(ctx -> {
+                            ColumnPos pos = ColumnPosArgument.getColumnPos(ctx, "pos");
+                            return clear(ctx, ChunkPos.asLong(pos.x() >> 4, pos.z() >> 4));
+                        })))));
+    }
+
+    private static int list(CommandContext<CommandSourceStack> ctx) {
+        DimensionContext dimension = context(ctx);
+        if (dimension == null) return 0;
+        List<FailureRegistry.Failure> quarantined = dimension.failures.getQuarantined();
+        if (quarantined.isEmpty()) {
+            ctx.getSource().sendSuccess(() -> Component.literal("no quarantined chunks"), false);
+            return 0;
+        }
+        ctx.getSource().sendSuccess(() -> Component.literal(quarantined.size() + " quarantined chunks:"), false);
+        for (FailureRegistry.Failure failure : quarantined.subList(0, Math.min(LIST_LIMIT, quarantined.size()))) {
+            ChunkPos pos = new ChunkPos(failure.pos());
+            String line = "chunk " + pos.x + ", " + pos.z + " (block " + pos.getMinBlockX() + ", " + pos.getMinBlockZ() + "): "
+                + failure.count() + " failures, last " + failure.lastError();
+            ctx.getSource().sendSuccess(() -> Component.literal(line), false);
+        }
+        if (quarantined.size() > LIST_LIMIT) {
+            ctx.getSource().sendSuccess(() -> Component.literal("... and " + (quarantined.size() - LIST_LIMIT) + " more"), false);
+        }
+        return quarantined.size();
+    }
+
+    private static int clear(CommandContext<CommandSourceStack> ctx, Long pos) {
+        DimensionContext dimension = context(ctx);
+        if (dimension == null) return 0;
+        int cleared = dimension.clearQuarantine(pos);
+        if (cleared == 0) {
+            ctx.getSource().sendFailure(Component.literal(pos == null ? "no quarantined chunks" : "that chunk is not quarantined"));
+            return 0;
+        }
+        ctx.getSource().sendSuccess(() -> Component.literal("released " + cleared + " quarantined chunks for generation"), true);
+        return cleared;
+    }
+
+    private static DimensionContext context(CommandContext<CommandSourceStack> ctx) {
+        DimensionContext dimension = ChunkGenerationManager.getInstance().getContext(ctx.getSource().getLevel().dimension());
+        if (dimension == null) {
+            ctx.getSource().sendFailure(Component.literal("nothing is being generated in this dimension"));
+        }
+        return dimension;
+    }
+}
@@ -0,0 +1,240 @@
+package com.ethan.voxyworldgenv2.core;
+
+import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import com.ethan.voxyworldgenv2.generation.DiskChunkDecoder;
+import com.ethan.voxyworldgenv2.integration.VoxyIntegration;
+import com.ethan.voxyworldgenv2.mixin.ChunkMapMixin;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.nbt.visitors.CollectFields;
+import net.minecraft.nbt.visitors.FieldSelector;
+import net.minecraft.server.level.ChunkMap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import net.minecraft.world.level.dimension.DimensionType;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * finds chunks the world already generated before this mod tracked them.
+ * only region files under a frontier are scanned, players and jobs that move on bring new ones in.
+ * only the location table of each region file is mapped, the status of present chunks
+ * is read through the chunk map's scanner which parses nothing but the Status field,
+ * a few at a time so the io worker queue stays short.
+ * full chunks are marked completed, with disk ingest on they are also handed to voxy
+ */
+final class RegionScanner {
+    private static final Pattern REGION_NAME = Pattern.compile("^r\\.(-?\\d+)\\.(-?\\d+)\\.mca$");
+    private static final int HEADER_BYTES = 4096;
+    private static final int CHUNKS_PER_REGION = 1024;
+    // scanChunk requests in flight at once, the io worker runs them at foreground priority
+    private static final int SCAN_BATCH = 32;
+    private static final long IDLE_MILLIS = 5000;
+
+    private final DimensionContext ctx;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private RegionScanner(DimensionContext ctx) {
+        this.ctx = ctx;
+        this.thread = new Thread(this::run, "Voxy-WorldGen-RegionScan");
+        this.thread.setDaemon(true);
+    }
+
+    static RegionScanner start(DimensionContext ctx) {
+        RegionScanner scanner = new RegionScanner(ctx);
+        scanner.thread.start();
+        return scanner;
+    }
+
+    // stops before the next region, called before the checkpoint writer closes
+    void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        ServerLevel level = ctx.level();
+        Path regionDir = DimensionType.getStorageFolder(ctx.dimensionKey(), level.getServer().getWorldPath(LevelResource.ROOT)).resolve("region");
+        if (!Files.isDirectory(regionDir)) return;
+
+        try {
+            // scanned chunks are checked against the checkpoint, it has to be in first
+            ctx.loaded().get();
+            // files written later hold chunks this mod or the game already track
+            LongSet unscanned = listRegions(regionDir);
+            while (running && !unscanned.isEmpty()) {
+                List<ChunkPos> due = dueRegions(unscanned);
+                if (due.isEmpty()) {
+                    Thread.sleep(IDLE_MILLIS);
+                    continue;
+                }
+                long started = System.nanoTime();
+                long found = 0;
+                for (ChunkPos region : due) {
+                    if (!running) break;
+                    unscanned.remove(region.toLong());
+                    int marked = scanRegion(level, regionDir.resolve("r." + region.x + "." + region.z + ".mca"), region);
+                    // stopped with scans still out, what they would have found is picked up next time
+                    if (marked < 0) {
+                        unscanned.add(region.toLong());
+                        break;
+                    }
+                    found += marked;
+                }
+                if (found > 0) {
+                    VoxyWorldGenV2.LOGGER.info("marked {} existing chunks in {} as completed in {}ms",
+                            found, ctx.dimensionKey().location(), (System.nanoTime() - started) / 1_000_000);
+                }
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (Exception e) {
+            VoxyWorldGenV2.LOGGER.error("region scan of {} failed", ctx.dimensionKey().location(), e);
+        }
+    }
+
+    private static LongSet listRegions(Path regionDir) throws IOException {
+        LongSet regions = new LongOpenHashSet();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(regionDir, "r.*.mca")) {
+            for (Path path : stream) {
+                Matcher m = REGION_NAME.matcher(path.getFileName().toString());
+                if (m.matches()) {
+                    regions.add(ChunkPos.asLong(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))));
+                }
+            }
+        }
+        return regions;
+    }
+
+    // unscanned regions touched by a frontier, nearest to a frontier center first
+    private List<ChunkPos> dueRegions(LongSet unscanned) {
+        Long2LongOpenHashMap distances = new Long2LongOpenHashMap();
+        distances.defaultReturnValue(Long.MAX_VALUE);
+        for (FairShareScheduler.Frontier frontier : ctx.scheduler.getFrontiers()) {
+            ChunkPos center = frontier.center();
+            int radius = frontier.radius();
+            for (int rx = (center.x - radius) >> 5; rx <= (center.x + radius) >> 5; rx++) {
+                for (int rz = (center.z - radius) >> 5; rz <= (center.z + radius) >> 5; rz++) {
+                    long key = ChunkPos.asLong(rx, rz);
+                    if (!unscanned.contains(key)) continue;
+                    long dx = Math.max(0, Math.max((rx << 5) - center.x, center.x - ((rx << 5) + 31)));
+                    long dz = Math.max(0, Math.max((rz << 5) - center.z, center.z - ((rz << 5) + 31)));
+                    long distSq = dx * dx + dz * dz;
+                    if (!frontier.square() && distSq > (long) radius * radius) continue;
+                    if (distSq < distances.get(key)) distances.put(key, distSq);
+                }
+            }
+        }
+        List<ChunkPos> due = new ArrayList<>(distances.size());
+        for (long key : distances.keySet()) {
+            due.add(new ChunkPos(key));
+        }
+        due.sort(Comparator.comparingLong(r -> distances.get(r.toLong())));
+        return due;
+    }
+
+    // marked chunk count, or -1 if the scanner stopped before every scan of the region settled
+    private int scanRegion(ServerLevel level, Path file, ChunkPos region) throws InterruptedException {
+        List<ChunkPos> present = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES * 2) return 0;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.BIG_ENDIAN);
+            for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+                int entry = header.getInt(i * 4);
+                // 3 byte sector offset, 1 byte sector count, empty slots are zero
+                if ((entry >>> 8) < 2 || (entry & 0xFF) == 0) continue;
+                ChunkPos pos = new ChunkPos((region.x << 5) + (i & 31), (region.z << 5) + (i >> 5));
+                if (!ctx.isCompleted(pos.toLong())) present.add(pos);
+            }
+        } catch (IOException e) {
+            VoxyWorldGenV2.LOGGER.warn("could not read region header {}: {}", file.getFileName(), e.toString());
+            return 0;
+        }
+        if (present.isEmpty()) return 0;
+
+        ChunkMap chunkMap = level.getChunkSource().chunkMap;
+        List<CollectFields> visitors = new ArrayList<>(present.size());
+        List<CompletableFuture<Void>> scans = new ArrayList<>(present.size());
+        for (int from = 0; from < present.size(); from += SCAN_BATCH) {
+            if (!running) return -1;
+            List<CompletableFuture<Void>> batch = new ArrayList<>(SCAN_BATCH);
+            for (ChunkPos pos : present.subList(from, Math.min(present.size(), from + SCAN_BATCH))) {
+                CollectFields visitor = new CollectFields(new FieldSelector(StringTag.TYPE, "Status"));
+                visitors.add(visitor);
+                batch.add(chunkMap.chunkScanner().scanChunk(pos, visitor));
+            }
+            // the next batch only goes out once this one is off the io worker queue
+            if (!await(CompletableFuture.allOf(batch.toArray(new CompletableFuture[0])))) return -1;
+            scans.addAll(batch);
+        }
+
+        boolean ingest = Config.DATA.diskIngest && VoxyIntegration.isRawIngestAvailable();
+        Object worldId = ingest ? VoxyIntegration.getWorldIdentifier(level) : null;
+        int marked = 0;
+        for (int i = 0; i < scans.size(); i++) {
+            if (scans.get(i).isCompletedExceptionally()) continue;
+            Tag result = visitors.get(i).getResult();
+            if (!(result instanceof CompoundTag tag) || !ChunkStatus.byName(tag.getString("Status")).isOrAfter(ChunkStatus.FULL)) continue;
+
+            ChunkPos pos = present.get(i);
+            if (worldId != null && !ingestSaved(level, chunkMap, pos, worldId)) return -1;
+            if (ctx.markCompleted(pos.toLong())) marked++;
+        }
+        return marked;
+    }
+
+    // false if the scanner stopped before the read settled
+    private boolean ingestSaved(ServerLevel level, ChunkMap chunkMap, ChunkPos pos, Object worldId) throws InterruptedException {
+        CompletableFuture<Optional<CompoundTag>> read = ((ChunkMapMixin) chunkMap).invokeReadChunk(pos);
+        if (!await(read)) return false;
+        CompoundTag tag = read.isCompletedExceptionally() ? null : read.join().orElse(null);
+        if (tag != null) DiskChunkDecoder.ingest(level, pos, tag, worldId, ChunkGenerationManager.getInstance().getIngest());
+        return true;
+    }
+
+    // waits for the future to settle either way, false only if the scanner was stopped first
+    private boolean await(CompletableFuture<?> future) throws InterruptedException {
+        while (running) {
+            try {
+                future.get(1, TimeUnit.SECONDS);
+                return true;
+            } catch (ExecutionException e) {
+                // individual chunks are checked afterwards
+                return true;
+            } catch (TimeoutException ignored) {
+                // a slow disk only delays the scan, it never stacks more requests on the queue
+            }
+        }
+        return false;
+    }
+}
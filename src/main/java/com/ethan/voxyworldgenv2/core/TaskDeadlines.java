@@ -0,0 +1,116 @@
+package com.ethan.voxyworldgenv2.core;
+
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * deadlines of chunk futures waiting on the chunk system, ordered by expiry in a delay queue.
+ * a dispatch is settled exactly once, either by its future or by its deadline expiring,
+ * whoever settles it owns the ticket and the permit.
+ * settled deadlines are not searched for, they are dropped once they reach the head.
+ * tracking and polling happen on the server thread, settling on any thread
+ */
+final class TaskDeadlines {
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
+    // every tracked deadline in dispatch order, its unsettled head is the oldest dispatch
+    private final ArrayDeque<Deadline> dispatchOrder = new ArrayDeque<>();
+    private final AtomicInteger unsettled = new AtomicInteger(0);
+
+    static final class Deadline implements Delayed {
+        final DimensionContext ctx;
+        final ChunkPos pos;
+        final ChunkStatus status;
+        // false for disk reads, nothing to remove when they time out
+        final boolean ticketed;
+        final long dispatchedAt;
+        private final long expiresAt;
+        private final AtomicBoolean settled = new AtomicBoolean(false);
+
+        private Deadline(DimensionContext ctx, ChunkPos pos, ChunkStatus status, boolean ticketed, long dispatchedAt, long timeoutNanos) {
+            this.ctx = ctx;
+            this.pos = pos;
+            this.status = status;
+            this.ticketed = ticketed;
+            this.dispatchedAt = dispatchedAt;
+            this.expiresAt = dispatchedAt + timeoutNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            // nano times are compared by their difference, they may wrap
+            if (other instanceof Deadline deadline) return Long.signum(expiresAt - deadline.expiresAt);
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    // a timeout of 0 or less never expires, the deadline still settles the dispatch
+    Deadline track(DimensionContext ctx, ChunkPos pos, ChunkStatus status, long dispatchedAt, long timeoutNanos) {
+        return add(new Deadline(ctx, pos, status, true, dispatchedAt, timeoutNanos > 0 ? timeoutNanos : Long.MAX_VALUE / 2), timeoutNanos > 0);
+    }
+
+    // a region file read, it holds a permit but no ticket
+    Deadline trackRead(DimensionContext ctx, ChunkPos pos, ChunkStatus status, long dispatchedAt, long timeoutNanos) {
+        return add(new Deadline(ctx, pos, status, false, dispatchedAt, timeoutNanos > 0 ? timeoutNanos : Long.MAX_VALUE / 2), timeoutNanos > 0);
+    }
+
+    private Deadline add(Deadline deadline, boolean expires) {
+        if (expires) queue.add(deadline);
+        dispatchOrder.add(deadline);
+        // a dispatch that never settles holds back everything behind it, sweep once settled ones dominate
+        if (dispatchOrder.size() > 2 * unsettled.incrementAndGet() + 1024) dispatchOrder.removeIf(d -> d.settled.get());
+        return deadline;
+    }
+
+    // true if the future got there first, the deadline stays queued until it reaches the head
+    boolean settle(Deadline deadline) {
+        if (!deadline.settled.compareAndSet(false, true)) return false;
+        unsettled.decrementAndGet();
+        return true;
+    }
+
+    // deadlines that ran out and were not settled yet, they are settled by this call
+    List<Deadline> pollExpired() {
+        List<Deadline> expired = new ArrayList<>();
+        Deadline deadline;
+        while ((deadline = queue.poll()) != null) {
+            if (deadline.settled.compareAndSet(false, true)) {
+                unsettled.decrementAndGet();
+                expired.add(deadline);
+            }
+        }
+        // removing the head is found at index 0, no scan
+        while ((deadline = queue.peek()) != null && deadline.settled.get()) {
+            queue.remove(deadline);
+        }
+        return expired;
+    }
+
+    // age of the oldest dispatch still waiting for its chunk, 0 when none is
+    long oldestAgeNanos() {
+        Deadline head;
+        while ((head = dispatchOrder.peek()) != null && head.settled.get()) {
+            dispatchOrder.poll();
+        }
+        return head == null ? 0 : System.nanoTime() - head.dispatchedAt;
+    }
+
+    void clear() {
+        queue.clear();
+        dispatchOrder.clear();
+        unsettled.set(0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.ethan.voxyworldgenv2.generation;
+
+import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import com.ethan.voxyworldgenv2.integration.VoxyIngestPipeline;
+import com.mojang.serialization.Codec;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * decodes saved chunk nbt straight into detached sections for voxy
+ * only the block state and biome palettes and the light arrays are read,
+ * entities, block entities and ticks are never touched
+ */
+public final class DiskChunkDecoder {
+    private static final Codec<PalettedContainer<BlockState>> BLOCK_STATE_CODEC = PalettedContainer.codecRW(
+            Block.BLOCK_STATE_REGISTRY, BlockState.CODEC, PalettedContainer.Strategy.SECTION_STATES, Blocks.AIR.defaultBlockState());
+    private static final Map<Registry<Biome>, Codec<PalettedContainerRO<Holder<Biome>>>> BIOME_CODECS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private DiskChunkDecoder() {}
+
+    // true if the saved chunk got at least as far as the required status
+    public static boolean isGenerated(CompoundTag tag, ChunkStatus required) {
+        ChunkStatus status = ChunkStatus.byName(tag.getString("Status"));
+        return status.isOrAfter(required);
+    }
+
+    // safe off the server thread, returns false if the sections could not be decoded or were not queued
+    public static boolean ingest(ServerLevel level, ChunkPos pos, CompoundTag tag, Object worldId, VoxyIngestPipeline ingest) {
+        VoxyIngestPipeline.Snapshot snapshot = ingest.open(worldId, pos.x, pos.z);
+        try {
+            Registry<Biome> biomeRegistry = level.registryAccess().registryOrThrow(Registries.BIOME);
+            Codec<PalettedContainerRO<Holder<Biome>>> biomeCodec = biomeCodec(biomeRegistry);
+            ListTag sections = tag.getList("sections", Tag.TAG_COMPOUND);
+            int minSectionY = level.getMinSection();
+            int maxSectionY = level.getMaxSection();
+
+            for (int i = 0; i < sections.size(); i++) {
+                CompoundTag sectionTag = sections.getCompound(i);
+                int sectionY = sectionTag.getByte("Y");
+                if (sectionY < minSectionY || sectionY >= maxSectionY || !sectionTag.contains("block_states", Tag.TAG_COMPOUND)) continue;
+
+                PalettedContainer<BlockState> states = BLOCK_STATE_CODEC.parse(NbtOps.INSTANCE, sectionTag.getCompound("block_states"))
+                        .getOrThrow(error -> new IllegalStateException("invalid block states in " + pos + ": " + error));
+                PalettedContainerRO<Holder<Biome>> biomes = sectionTag.contains("biomes", Tag.TAG_COMPOUND)
+                        ? biomeCodec.parse(NbtOps.INSTANCE, sectionTag.getCompound("biomes")).result().orElse(null)
+                        : null;
+                if (biomes == null) {
+                    biomes = new PalettedContainer<>(biomeRegistry.asHolderIdMap(), biomeRegistry.getHolderOrThrow(Biomes.PLAINS), PalettedContainer.Strategy.SECTION_BIOMES);
+                }
+
+                LevelChunkSection section = new LevelChunkSection(states, biomes);
+                section.recalcBlockCounts();
+                if (section.hasOnlyAir()) continue;
+
+                DataLayer blockLight = sectionTag.contains("BlockLight", Tag.TAG_BYTE_ARRAY) ? new DataLayer(sectionTag.getByteArray("BlockLight")) : null;
+                DataLayer skyLight = sectionTag.contains("SkyLight", Tag.TAG_BYTE_ARRAY) ? new DataLayer(sectionTag.getByteArray("SkyLight")) : null;
+                snapshot.add(sectionY, section, blockLight, skyLight);
+            }
+        } catch (Throwable e) {
+            VoxyWorldGenV2.LOGGER.error("failed to decode saved chunk {}", pos, e);
+            ingest.discard(snapshot);
+            return false;
+        }
+        return ingest.submit(snapshot);
+    }
+
+    private static Codec<PalettedContainerRO<Holder<Biome>>> biomeCodec(Registry<Biome> registry) {
+        synchronized (BIOME_CODECS) {
+            return BIOME_CODECS.computeIfAbsent(registry, r -> PalettedContainer.codecRO(
+                    r.asHolderIdMap(), r.holderByNameCodec(), PalettedContainer.Strategy.SECTION_BIOMES, r.getHolderOrThrow(Biomes.PLAINS)));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.ethan.voxyworldgenv2.generation;
+
+import com.ethan.voxyworldgenv2.core.Config;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * worker pool for generation paths that never touch live world state
+ * (tellus terrain, the heightmap lod ring, saved chunk decoding and range counts), sized by the tellusThreads setting
+ */
+public final class FastGenerationPool {
+    private static volatile ForkJoinPool pool;
+
+    private FastGenerationPool() {}
+
+    public static ForkJoinPool get() {
+        ForkJoinPool current = pool;
+        if (current == null) {
+            synchronized (FastGenerationPool.class) {
+                current = pool;
+                if (current == null) {
+                    int threads = Config.DATA.tellusThreads > 0
+                            ? Config.DATA.tellusThreads
+                            : Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+                    current = new ForkJoinPool(threads, p -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                        thread.setName("Voxy-WorldGen-Fast-" + thread.getPoolIndex());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, null, true);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public static void shutdown() {
+        synchronized (FastGenerationPool.class) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ethan.voxyworldgenv2.generation;
+
+import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import com.ethan.voxyworldgenv2.integration.VoxyIngestPipeline;
+import com.ethan.voxyworldgenv2.integration.VoxyIntegration;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkGenerator;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.NoiseBasedChunkGenerator;
+import net.minecraft.world.level.levelgen.RandomState;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * coarsest lod tier for vanilla noise worlds
+ * the terrain height is sampled on a 4 block grid straight from the noise router and
+ * interpolated, then built into plain layered sections like the tellus fast path
+ */
+public final class HeightmapGenerator {
+    private static final int GRID = 4;
+    private static final int SAMPLES = 16 / GRID + 1;
+    private static final DataLayer FULL_LIGHT = new DataLayer(15);
+
+    private HeightmapGenerator() {}
+
+    // only open sky noise worlds, ceilings and floating islands do not fit a single height per column
+    public static boolean supports(ServerLevel level) {
+        return level.getChunkSource().getGenerator() instanceof NoiseBasedChunkGenerator
+                && level.dimensionType().hasSkyLight()
+                && !level.dimensionType().hasCeiling();
+    }
+
+    // completes with the keys of the chunks that were handed to the ingest pipeline
+    public static CompletableFuture<LongSet> generateBatchAsync(ServerLevel level, List<ChunkPos> chunks, VoxyIngestPipeline ingest) {
+        return CompletableFuture.supplyAsync(() -> {
+            LongSet built = new LongOpenHashSet(chunks.size());
+            Object worldId = VoxyIntegration.getWorldIdentifier(level);
+            if (worldId == null) return built;
+
+            Registry<Biome> biomeRegistry = level.registryAccess().registryOrThrow(Registries.BIOME);
+            for (ChunkPos pos : chunks) {
+                if (generate(level, pos, worldId, biomeRegistry, ingest)) {
+                    built.add(pos.toLong());
+                }
+            }
+            return built;
+        }, FastGenerationPool.get());
+    }
+
+    private static boolean generate(ServerLevel level, ChunkPos pos, Object worldId, Registry<Biome> biomeRegistry, VoxyIngestPipeline ingest) {
+        try {
+            ChunkGenerator generator = level.getChunkSource().getGenerator();
+            RandomState randomState = level.getChunkSource().randomState();
+            int seaLevel = generator.getSeaLevel();
+            int minBlockX = pos.getMinBlockX();
+            int minBlockZ = pos.getMinBlockZ();
+
+            // the heightmap value is the first free block, the surface is one below
+            int[] grid = new int[SAMPLES * SAMPLES];
+            for (int gz = 0; gz < SAMPLES; gz++) {
+                for (int gx = 0; gx < SAMPLES; gx++) {
+                    grid[gx + gz * SAMPLES] = generator.getBaseHeight(minBlockX + gx * GRID, minBlockZ + gz * GRID,
+                            Heightmap.Types.OCEAN_FLOOR_WG, level, randomState) - 1;
+                }
+            }
+
+            SectionBuilder.Columns columns = SectionBuilder.columns();
+            int[] heights = columns.heights;
+            for (int z = 0; z < 16; z++) {
+                int gz = z / GRID;
+                double fz = (z % GRID) / (double) GRID;
+                for (int x = 0; x < 16; x++) {
+                    int gx = x / GRID;
+                    double fx = (x % GRID) / (double) GRID;
+                    double top = grid[gx + gz * SAMPLES] * (1 - fx) + grid[gx + 1 + gz * SAMPLES] * fx;
+                    double bottom = grid[gx + (gz + 1) * SAMPLES] * (1 - fx) + grid[gx + 1 + (gz + 1) * SAMPLES] * fx;
+                    heights[x + (z << 4)] = (int) Math.round(top * (1 - fz) + bottom * fz);
+                }
+            }
+
+            BlockState stone = Blocks.STONE.defaultBlockState();
+            BlockState grass = Blocks.GRASS_BLOCK.defaultBlockState();
+            BlockState dirt = Blocks.DIRT.defaultBlockState();
+            BlockState sand = Blocks.SAND.defaultBlockState();
+            for (int i = 0; i < 256; i++) {
+                int x = i & 15;
+                int z = i >> 4;
+                int h = heights[i];
+                int eastH = (x < 15) ? heights[i + 1] : h;
+                int southH = (z < 15) ? heights[i + 16] : h;
+                int slope = Math.max(Math.abs(eastH - h), Math.abs(southH - h));
+
+                BlockState surfaceBlock = grass;
+                BlockState fillerBlock = dirt;
+                if (h < seaLevel + 2) {
+                    surfaceBlock = sand;
+                    fillerBlock = sand;
+                }
+                if (slope > 2) {
+                    surfaceBlock = stone;
+                    fillerBlock = stone;
+                }
+                columns.surface[i] = surfaceBlock;
+                columns.filler[i] = fillerBlock;
+            }
+
+            LevelChunkSection[] sections = SectionBuilder.build(level, biomeRegistry, columns, seaLevel);
+            int minSectionY = level.getMinSection();
+            VoxyIngestPipeline.Snapshot snapshot = ingest.open(worldId, pos.x, pos.z);
+            for (int i = 0; i < sections.length; i++) {
+                LevelChunkSection section = sections[i];
+                if (section != null) {
+                    snapshot.add(minSectionY + i, section, null, FULL_LIGHT);
+                }
+            }
+            return ingest.submit(snapshot);
+        } catch (Throwable e) {
+            VoxyWorldGenV2.LOGGER.error("failed to build heightmap chunk for {}", pos, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.ethan.voxyworldgenv2.generation;
+
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * builds detached sections from per-column layers for the fast generation paths
+ * a column is deep stone (deepslate below y 0) up to height - 4, filler for the three blocks
+ * below the surface, the surface block at height and water up to sea level.
+ * the sections are never placed in a world, they only live until voxy has ingested them
+ */
+public final class SectionBuilder {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    private static final BlockState STONE = Blocks.STONE.defaultBlockState();
+    private static final BlockState DEEPSLATE = Blocks.DEEPSLATE.defaultBlockState();
+    private static final BlockState WATER = Blocks.WATER.defaultBlockState();
+    private static final int FILLER_DEPTH = 3;
+
+    // biome container and fully solid sections are shared, nothing writes to them after creation
+    private record Shared(PalettedContainerRO<Holder<Biome>> biomes, Map<BlockState, LevelChunkSection> uniform) {}
+
+    private static final Map<Registry<Biome>, Shared> SHARED = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ThreadLocal<Columns> SCRATCH = ThreadLocal.withInitial(Columns::new);
+
+    private SectionBuilder() {}
+
+    // per thread column scratch, valid until the next build on the same thread
+    public static final class Columns {
+        public final int[] heights = new int[256];
+        public final BlockState[] surface = new BlockState[256];
+        public final BlockState[] filler = new BlockState[256];
+        private LevelChunkSection[] sections = new LevelChunkSection[0];
+
+        private LevelChunkSection[] sections(int count) {
+            if (sections.length != count) {
+                sections = new LevelChunkSection[count];
+            } else {
+                Arrays.fill(sections, null);
+            }
+            return sections;
+        }
+    }
+
+    public static Columns columns() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * fills the sections of one chunk from the columns of the calling thread.
+     * the returned array is scratch, null entries are empty sections
+     */
+    public static LevelChunkSection[] build(LevelHeightAccessor heightAccessor, Registry<Biome> biomeRegistry, Columns columns, int seaLevel) {
+        Shared shared = shared(biomeRegistry);
+        int minSectionY = heightAccessor.getMinSection();
+        LevelChunkSection[] sections = columns.sections(heightAccessor.getSectionsCount());
+        int[] heights = columns.heights;
+
+        int minH = Integer.MAX_VALUE;
+        int maxTop = seaLevel;
+        for (int h : heights) {
+            if (h < minH) minH = h;
+            if (h > maxTop) maxTop = h;
+        }
+
+        for (int i = 0; i < sections.length; i++) {
+            int base = (minSectionY + i) << 4;
+            int top = base + 15;
+
+            if (top < minH - FILLER_DEPTH) {
+                sections[i] = uniform(shared, base < 0 ? DEEPSLATE : STONE);
+                continue;
+            }
+            if (base > maxTop) continue;
+
+            PalettedContainer<BlockState> states = new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY, AIR, PalettedContainer.Strategy.SECTION_STATES);
+            for (int c = 0; c < 256; c++) {
+                int x = c & 15;
+                int z = c >> 4;
+                int h = heights[c];
+                int deepTop = h - FILLER_DEPTH - 1;
+
+                fill(states, x, z, base, top, Integer.MIN_VALUE, Math.min(deepTop, -1), DEEPSLATE);
+                fill(states, x, z, base, top, 0, deepTop, STONE);
+                fill(states, x, z, base, top, h - FILLER_DEPTH, h - 1, columns.filler[c]);
+                fill(states, x, z, base, top, h, h, columns.surface[c]);
+                fill(states, x, z, base, top, h + 1, seaLevel, WATER);
+            }
+
+            LevelChunkSection section = new LevelChunkSection(states, shared.biomes());
+            section.recalcBlockCounts();
+            if (!section.hasOnlyAir()) sections[i] = section;
+        }
+        return sections;
+    }
+
+    // one run of a column clipped to the section, no palette lookups outside the run
+    private static void fill(PalettedContainer<BlockState> states, int x, int z, int base, int top, int from, int to, BlockState state) {
+        int lo = Math.max(from, base);
+        int hi = Math.min(to, top);
+        for (int y = lo; y <= hi; y++) {
+            states.getAndSetUnchecked(x, y & 15, z, state);
+        }
+    }
+
+    private static LevelChunkSection uniform(Shared shared, BlockState state) {
+        return shared.uniform().computeIfAbsent(state, s -> {
+            LevelChunkSection section = new LevelChunkSection(
+                    new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY, s, PalettedContainer.Strategy.SECTION_STATES),
+                    shared.biomes());
+            section.recalcBlockCounts();
+            return section;
+        });
+    }
+
+    private static Shared shared(Registry<Biome> biomeRegistry) {
+        synchronized (SHARED) {
+            return SHARED.computeIfAbsent(biomeRegistry, registry -> new Shared(
+                    new PalettedContainer<>(registry.asHolderIdMap(), registry.getHolderOrThrow(Biomes.PLAINS), PalettedContainer.Strategy.SECTION_BIOMES),
+                    new ConcurrentHashMap<>()));
+        }
+    }
+}
@@ -37,6 +37,69 @@ public class ModMenuIntegration implements ModMenuApi {
                 .setSaveConsumer(newValue -> Config.DATA.generationRadius = newValue)
                 .build());
             
+            general.addEntry(entryBuilder.startIntField(Component.translatable("config.voxyworldgenv2.option.full_detail_radius"), Config.DATA.fullDetailRadius)
+                .setDefaultValue(128)
+                .setMin(0)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.full_detail_radius.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.fullDetailRadius = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startIntField(Component.translatable("config.voxyworldgenv2.option.noise_detail_radius"), Config.DATA.noiseDetailRadius)
+                .setDefaultValue(256)
+                .setMin(0)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.noise_detail_radius.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.noiseDetailRadius = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startBooleanToggle(Component.translatable("config.voxyworldgenv2.option.disk_ingest"), Config.DATA.diskIngest)
+                .setDefaultValue(false)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.disk_ingest.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.diskIngest = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startBooleanToggle(Component.translatable("config.voxyworldgenv2.option.scan_existing_chunks"), Config.DATA.scanExistingChunks)
+                .setDefaultValue(true)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.scan_existing_chunks.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.scanExistingChunks = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startDoubleField(Component.translatable("config.voxyworldgenv2.option.prediction_seconds"), Config.DATA.predictionSeconds)
+                .setDefaultValue(4.0)
+                .setMin(0.0)
+                .setMax(30.0)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.prediction_seconds.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.predictionSeconds = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startDoubleField(Component.translatable("config.voxyworldgenv2.option.region_locality"), Config.DATA.regionLocality)
+                .setDefaultValue(0.0)
+                .setMin(0.0)
+                .setMax(4.0)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.region_locality.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.regionLocality = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startIntField(Component.translatable("config.voxyworldgenv2.option.failure_backoff"), Config.DATA.failureBackoffSeconds)
+                .setDefaultValue(5)
+                .setMin(0)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.failure_backoff.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.failureBackoffSeconds = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startIntField(Component.translatable("config.voxyworldgenv2.option.failure_quarantine"), Config.DATA.failureQuarantineThreshold)
+                .setDefaultValue(5)
+                .setMin(1)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.failure_quarantine.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.failureQuarantineThreshold = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startIntField(Component.translatable("config.voxyworldgenv2.option.chunk_timeout"), Config.DATA.chunkTimeoutSeconds)
+                .setDefaultValue(120)
+                .setMin(0)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.chunk_timeout.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.chunkTimeoutSeconds = newValue)
+                .build());
+            
             general.addEntry(entryBuilder.startIntSlider(Component.translatable("config.voxyworldgenv2.option.update_interval"), Config.DATA.update_interval, 1, 200)
                 .setDefaultValue(20)
                 .setTooltip(Component.translatable("config.voxyworldgenv2.option.update_interval.tooltip"))
@@ -55,6 +118,78 @@ public class ModMenuIntegration implements ModMenuApi {
                 .setSaveConsumer(newValue -> Config.DATA.maxActiveTasks = newValue)
                 .build());
             
+            general.addEntry(entryBuilder.startBooleanToggle(Component.translatable("config.voxyworldgenv2.option.adaptive_concurrency"), Config.DATA.adaptiveConcurrency)
+                .setDefaultValue(true)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.adaptive_concurrency.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.adaptiveConcurrency = newValue)
+                .build());
+
+            general.addEntry(entryBuilder.startDoubleField(Component.translatable("config.voxyworldgenv2.option.target_mspt"), Config.DATA.targetMspt)
+                .setDefaultValue(40.0)
+                .setMin(5.0)
+                .setMax(50.0)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.target_mspt.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.targetMspt = newValue)
+                .build());
+
+            general.addEntry(entryBuilder.startIntSlider(Component.translatable("config.voxyworldgenv2.option.adaptive_min"), Config.DATA.adaptiveMinTasks, 1, 128)
+                .setDefaultValue(4)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.adaptive_min.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.adaptiveMinTasks = newValue)
+                .build());
+
+            general.addEntry(entryBuilder.startIntField(Component.translatable("config.voxyworldgenv2.option.adaptive_max"), Config.DATA.adaptiveMaxTasks)
+                .setDefaultValue(256)
+                .setMin(1)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.adaptive_max.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.adaptiveMaxTasks = newValue)
+                .build());
+
+            general.addEntry(entryBuilder.startIntSlider(Component.translatable("config.voxyworldgenv2.option.checkpoint_interval"), Config.DATA.checkpointIntervalSeconds, 1, 120)
+                .setDefaultValue(10)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.checkpoint_interval.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.checkpointIntervalSeconds = newValue)
+                .build());
+
+            general.addEntry(entryBuilder.startIntField(Component.translatable("config.voxyworldgenv2.option.compaction_interval"), Config.DATA.compactionIntervalSeconds)
+                .setDefaultValue(300)
+                .setMin(10)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.compaction_interval.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.compactionIntervalSeconds = newValue)
+                .build());
+
+            general.addEntry(entryBuilder.startEnumSelector(Component.translatable("config.voxyworldgenv2.option.checkpoint_fsync"), Config.FsyncPolicy.class, Config.DATA.checkpointFsync)
+                .setDefaultValue(Config.FsyncPolicy.COMPACTION)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.checkpoint_fsync.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.checkpointFsync = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startLongField(Component.translatable("config.voxyworldgenv2.option.main_thread_budget"), Config.DATA.mainThreadBudgetNanos)
+                .setDefaultValue(5_000_000L)
+                .setMin(0L)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.main_thread_budget.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.mainThreadBudgetNanos = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startIntSlider(Component.translatable("config.voxyworldgenv2.option.ingest_threads"), Config.DATA.ingestThreads, 1, 8)
+                .setDefaultValue(1)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.ingest_threads.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.ingestThreads = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startIntField(Component.translatable("config.voxyworldgenv2.option.ingest_queue"), Config.DATA.ingestQueueCapacity)
+                .setDefaultValue(512)
+                .setMin(16)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.ingest_queue.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.ingestQueueCapacity = newValue)
+                .build());
+            
+            general.addEntry(entryBuilder.startIntSlider(Component.translatable("config.voxyworldgenv2.option.tellus_threads"), Config.DATA.tellusThreads, 0, 64)
+                .setDefaultValue(0)
+                .setTooltip(Component.translatable("config.voxyworldgenv2.option.tellus_threads.tooltip"))
+                .setSaveConsumer(newValue -> Config.DATA.tellusThreads = newValue)
+                .build());
+            
             builder.setSavingRunnable(() -> {
                 Config.save();
                 com.ethan.voxyworldgenv2.core.ChunkGenerationManager.getInstance().scheduleConfigReload();
@@ -1,6 +1,12 @@
 package com.ethan.voxyworldgenv2.integration;
 
 import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import com.ethan.voxyworldgenv2.generation.FastGenerationPool;
+import com.ethan.voxyworldgenv2.generation.SectionBuilder;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Registry;
 import net.minecraft.core.registries.BuiltInRegistries;
@@ -19,12 +25,21 @@ import net.minecraft.world.level.chunk.status.ChunkStatus;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class TellusIntegration {
-    private static boolean initialized = false;
+    // set last, after every handle below is assigned, pool threads read it without locking
+    private static volatile boolean initialized = false;
     private static boolean tellusPresent = false;
 
     // classes
@@ -59,9 +74,19 @@ public final class TellusIntegration {
     private static final int ESA_SNOW_ICE = 220;
     private static final int ESA_TREE_COVER = 10;
 
-    private static void initialize() {
+    // resolved once per level instead of once per chunk, the sampling pass reads nothing else
+    record LevelSettings(MethodHandle sampleElevation, Object elevationSource, MethodHandle sampleCover, Object landCoverSource,
+                         double worldScale, double terrestrialHeightScale, double oceanicHeightScale, int heightOffset, int seaLevel) {}
+
+    private static final Map<ServerLevel, LevelSettings> SETTINGS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // column buffers are recycled once a chunk has been built
+    private static final ArrayBlockingQueue<int[]> BUFFER_POOL = new ArrayBlockingQueue<>(2048);
+
+    private static final AtomicLong columnFailures = new AtomicLong(0);
+
+    private static synchronized void initialize() {
         if (initialized) return;
-        initialized = true;
 
         try {
             earthChunkGeneratorClass = Class.forName("com.yucareux.tellus.worldgen.EarthChunkGenerator");
@@ -79,10 +104,13 @@ public final class TellusIntegration {
             landCoverSource = landCoverSourceField.get(null);
 
             Method sampleCoverMethod = landCoverSourceClass.getMethod("sampleCoverClass", int.class, int.class, double.class);
-            sampleCoverClassHandle = lookup.unreflect(sampleCoverMethod);
+            // erased to object receivers so the hot loop can use invokeExact
+            sampleCoverClassHandle = lookup.unreflect(sampleCoverMethod)
+                    .asType(MethodType.methodType(int.class, Object.class, int.class, int.class, double.class));
 
             Method sampleMethod = tellusElevationSourceClass.getMethod("sampleElevationMeters", double.class, double.class, double.class, boolean.class);
-            sampleElevationMetersMethod = lookup.unreflect(sampleMethod);
+            sampleElevationMetersMethod = lookup.unreflect(sampleMethod)
+                    .asType(MethodType.methodType(double.class, Object.class, double.class, double.class, double.class, boolean.class));
 
             Method settingsMethod = earthChunkGeneratorClass.getMethod("settings");
             getSettingsMethod = lookup.unreflect(settingsMethod);
@@ -102,6 +130,7 @@ public final class TellusIntegration {
             VoxyWorldGenV2.LOGGER.error("failed to initialize tellus", e);
             tellusPresent = false;
         }
+        initialized = true;
     }
 
     public static boolean isTellusWorld(ServerLevel level) {
@@ -112,102 +141,164 @@ public final class TellusIntegration {
 
     public record TellusChunkData(int[] heights, int[] coverClasses) {}
 
-    public static TellusChunkData sampleData(ServerLevel level, ChunkPos pos) {
+    private static LevelSettings settings(ServerLevel level) throws Throwable {
+        LevelSettings cached = SETTINGS.get(level);
+        if (cached != null) return cached;
+
+        Object settings = getSettingsMethod.invoke(level.getChunkSource().getGenerator());
+        LevelSettings resolved = new LevelSettings(
+                sampleElevationMetersMethod,
+                elevationSourceField.get(null),
+                sampleCoverClassHandle,
+                landCoverSource,
+                (double) worldScaleHandle.invoke(settings),
+                (double) terrestrialHeightScaleHandle.invoke(settings),
+                (double) oceanicHeightScaleHandle.invoke(settings),
+                (int) heightOffsetHandle.invoke(settings),
+                (int) resolveSeaLevelHandle.invoke(settings));
+        SETTINGS.put(level, resolved);
+        return resolved;
+    }
+
+    public static void shutdown() {
+        SETTINGS.clear();
+    }
+
+    private static int[] acquireBuffer() {
+        int[] buffer = BUFFER_POOL.poll();
+        return buffer != null ? buffer : new int[256];
+    }
+
+    public static void release(TellusChunkData data) {
+        if (data == null) return;
+        BUFFER_POOL.offer(data.heights);
+        BUFFER_POOL.offer(data.coverClasses);
+    }
+
+    // samples and builds a batch on the fast generation pool, batches from many calls run in parallel.
+    // completes with the keys of the chunks that were handed to the ingest pipeline
+    public static CompletableFuture<LongSet> generateBatchAsync(ServerLevel level, List<ChunkPos> chunks, VoxyIngestPipeline ingest) {
+        return CompletableFuture.supplyAsync(() -> {
+            Long2ObjectMap<TellusChunkData> samples = sampleBatch(level, chunks);
+            LongSet built = new LongOpenHashSet(chunks.size());
+            for (ChunkPos pos : chunks) {
+                TellusChunkData data = samples.get(pos.toLong());
+                if (generateFromHeights(level, pos, data, ingest)) {
+                    built.add(pos.toLong());
+                }
+                release(data);
+            }
+            return built;
+        }, FastGenerationPool.get());
+    }
+
+    // one row-major pass over the columns of a 4x4 chunk batch
+    public static Long2ObjectMap<TellusChunkData> sampleBatch(ServerLevel level, List<ChunkPos> chunks) {
         if (!initialized) initialize();
-        if (!tellusPresent) return null;
+        if (!tellusPresent || chunks.isEmpty()) return new Long2ObjectOpenHashMap<>();
 
+        LevelSettings s;
         try {
-            Object generator = level.getChunkSource().getGenerator();
-            Object settings = getSettingsMethod.invoke(generator);
-            Object elevationSource = elevationSourceField.get(null);
-
-            double worldScale = (double) worldScaleHandle.invoke(settings);
-            double terrestrialHeightScale = (double) terrestrialHeightScaleHandle.invoke(settings);
-            double oceanicHeightScale = (double) oceanicHeightScaleHandle.invoke(settings);
-            int heightOffset = (int) heightOffsetHandle.invoke(settings);
+            s = settings(level);
+        } catch (Throwable e) {
+            VoxyWorldGenV2.LOGGER.error("failed to resolve tellus settings for {}", level.dimension().location(), e);
+            return new Long2ObjectOpenHashMap<>();
+        }
+        return sampleBatch(s, chunks);
+    }
 
-            int[] heights = new int[256];
-            int[] coverClasses = new int[256];
-            int minBlockX = pos.getMinBlockX();
-            int minBlockZ = pos.getMinBlockZ();
+    static Long2ObjectMap<TellusChunkData> sampleBatch(LevelSettings s, List<ChunkPos> chunks) {
+        Long2ObjectMap<TellusChunkData> result = new Long2ObjectOpenHashMap<>(chunks.size());
+        int minCx = Integer.MAX_VALUE, minCz = Integer.MAX_VALUE, maxCx = Integer.MIN_VALUE, maxCz = Integer.MIN_VALUE;
+        for (ChunkPos pos : chunks) {
+            minCx = Math.min(minCx, pos.x);
+            minCz = Math.min(minCz, pos.z);
+            maxCx = Math.max(maxCx, pos.x);
+            maxCz = Math.max(maxCz, pos.z);
+        }
+        int widthChunks = maxCx - minCx + 1;
+        TellusChunkData[] grid = new TellusChunkData[widthChunks * (maxCz - minCz + 1)];
+        for (ChunkPos pos : chunks) {
+            TellusChunkData data = new TellusChunkData(acquireBuffer(), acquireBuffer());
+            grid[(pos.x - minCx) + (pos.z - minCz) * widthChunks] = data;
+            result.put(pos.toLong(), data);
+        }
 
-            for (int i = 0; i < 256; i++) {
-                int z = i >> 4;
-                int x = i & 15;
-                int worldZ = minBlockZ + z;
-                int worldX = minBlockX + x;
+        MethodHandle sampleElevation = s.sampleElevation();
+        MethodHandle sampleCover = s.sampleCover();
+        Object elevationSource = s.elevationSource();
+        Object coverSource = s.landCoverSource();
+        double worldScale = s.worldScale();
+        int failures = 0;
+        Throwable firstError = null;
+        int minBlockX = minCx << 4;
+        int minBlockZ = minCz << 4;
+        int rows = (maxCz - minCz + 1) << 4;
+        int columns = widthChunks << 4;
+
+        for (int row = 0; row < rows; row++) {
+            int worldZ = minBlockZ + row;
+            int chunkRow = (row >> 4) * widthChunks;
+            int z = row & 15;
+            for (int col = 0; col < columns; col++) {
+                TellusChunkData data = grid[chunkRow + (col >> 4)];
+                if (data == null) {
+                    col |= 15; // skip the rest of a chunk that was not requested
+                    continue;
+                }
+                int i = (z << 4) | (col & 15);
+                int worldX = minBlockX + col;
                 try {
-                    double elevation = (double) sampleElevationMetersMethod.invoke(elevationSource, (double) worldX, (double) worldZ, worldScale, true);
-                    double heightScale = elevation >= 0.0 ? terrestrialHeightScale : oceanicHeightScale;
+                    double elevation = (double) sampleElevation.invokeExact(elevationSource, (double) worldX, (double) worldZ, worldScale, true);
+                    double heightScale = elevation >= 0.0 ? s.terrestrialHeightScale() : s.oceanicHeightScale();
                     double scaled = elevation * heightScale / worldScale;
-                    heights[i] = (elevation >= 0.0 ? Mth.ceil(scaled) : Mth.floor(scaled)) + heightOffset;
-                    coverClasses[i] = (int) sampleCoverClassHandle.invoke(landCoverSource, worldX, worldZ, worldScale);
-                } catch (Throwable e) {}
+                    data.heights[i] = (elevation >= 0.0 ? Mth.ceil(scaled) : Mth.floor(scaled)) + s.heightOffset();
+                    data.coverClasses[i] = (int) sampleCover.invokeExact(coverSource, worldX, worldZ, worldScale);
+                } catch (Throwable e) {
+                    // pooled buffers are not zeroed, reset the column and report once per batch
+                    data.heights[i] = 0;
+                    data.coverClasses[i] = 0;
+                    if (firstError == null) firstError = e;
+                    failures++;
+                }
             }
+        }
 
-            return new TellusChunkData(heights, coverClasses);
-        } catch (Throwable e) {
-            VoxyWorldGenV2.LOGGER.error("failed to sample tellus data for {}", pos, e);
-            return null;
+        if (failures > 0) {
+            long total = columnFailures.addAndGet(failures);
+            VoxyWorldGenV2.LOGGER.warn("failed to sample {} tellus columns near chunk {}, {} ({} total)", failures, minCx, minCz, total, firstError);
         }
+        return result;
     }
 
-    public static int[] sampleHeights(ServerLevel level, ChunkPos pos) {
-        TellusChunkData data = sampleData(level, pos);
-        return data != null ? data.heights : null;
+    public static long getColumnFailures() {
+        return columnFailures.get();
     }
 
     private static final DataLayer FULL_LIGHT = new DataLayer(15);
 
-    public static void generateFromHeights(ServerLevel level, ChunkPos pos, TellusChunkData data) {
-        if (data == null) return;
+    // safe off the server thread, only registries and the detached sections are touched
+    private static boolean generateFromHeights(ServerLevel level, ChunkPos pos, TellusChunkData data, VoxyIngestPipeline ingest) {
+        if (data == null) return false;
         int[] heights = data.heights;
         int[] coverClasses = data.coverClasses;
 
         try {
-            Object generator = level.getChunkSource().getGenerator();
-            Object settings = getSettingsMethod.invoke(generator);
-            int seaLevel = (int) resolveSeaLevelHandle.invoke(settings);
+            int seaLevel = settings(level).seaLevel();
+            Object worldId = VoxyIntegration.getWorldIdentifier(level);
+            if (worldId == null) return false;
 
             Registry<Biome> biomeRegistry = level.registryAccess().registryOrThrow(Registries.BIOME);
 
             BlockState stone = Blocks.STONE.defaultBlockState();
-            BlockState deepslate = Blocks.DEEPSLATE.defaultBlockState();
-            BlockState water = Blocks.WATER.defaultBlockState();
             BlockState grass = Blocks.GRASS_BLOCK.defaultBlockState();
             BlockState dirt = Blocks.DIRT.defaultBlockState();
             BlockState sand = Blocks.SAND.defaultBlockState();
             BlockState snow = Blocks.SNOW_BLOCK.defaultBlockState();
 
-            // calculate global bounds
-            int globalMinH = 256;
-            int globalMaxH = -256;
-            for (int h : heights) {
-                if (h < globalMinH) globalMinH = h;
-                if (h > globalMaxH) globalMaxH = h;
-            }
-
-            LevelChunkSection[] sections = new LevelChunkSection[level.getSectionsCount()];
-            int minSectionY = level.getMinSection();
-
-            // optimize the solid section generation
-            for (int i = 0; i < sections.length; i++) {
-                int sectionY = minSectionY + i;
-                int sectionTopY = (sectionY << 4) + 15;
-
-                if (sectionTopY < globalMinH - 3) {
-                    BlockState fill = sectionTopY < 0 ? deepslate : stone;
-                    LevelChunkSection section = new LevelChunkSection(biomeRegistry);
-                    for (int by = 0; by < 16; by++)
-                        for (int bz = 0; bz < 16; bz++)
-                            for (int bx = 0; bx < 16; bx++)
-                                section.setBlockState(bx, by, bz, fill, false);
-                    section.recalcBlockCounts();
-                    sections[i] = section;
-                }
-            }
-
-            // surface generation
+            // surface layers per column
+            SectionBuilder.Columns columns = SectionBuilder.columns();
+            System.arraycopy(heights, 0, columns.heights, 0, 256);
             for (int i = 0; i < 256; i++) {
                 int z = i >> 4;
                 int x = i & 15;
@@ -236,62 +327,25 @@ public final class TellusIntegration {
                     fillerBlock = stone;
                 }
 
-                int columnTopY = Math.max(h, seaLevel);
-                for (int y = level.getMinBuildHeight(); y <= columnTopY; y++) {
-                    int secIdx = (y >> 4) - minSectionY;
-                    if (secIdx < 0 || secIdx >= sections.length) continue;
-
-                    LevelChunkSection section = sections[secIdx];
-                    if (section == null) {
-                        section = new LevelChunkSection(biomeRegistry);
-                        sections[secIdx] = section;
-                    }
-
-                    int sectionTopY = ((secIdx + minSectionY) << 4) + 15;
-
-                    // adaptive column skip
-                    if (sectionTopY < globalMinH - 3) {
-                        y = sectionTopY;
-                        continue;
-                    }
-
-                    BlockState state = Blocks.AIR.defaultBlockState();
-                    if (y < h - 3) {
-                        state = y < 0 ? deepslate : stone;
-                    } else if (y < h) {
-                        state = fillerBlock;
-                    } else if (y == h) {
-                        state = surfaceBlock;
-                    } else if (y <= seaLevel) {
-                        state = water;
-                    }
-
-                    if (!state.isAir()) {
-                        section.setBlockState(x, y & 15, z, state, false);
-                    }
-                }
+                columns.surface[i] = surfaceBlock;
+                columns.filler[i] = fillerBlock;
             }
 
-            // ingest into voxy
+            LevelChunkSection[] sections = SectionBuilder.build(level, biomeRegistry, columns, seaLevel);
+
+            // queued for voxy, rawIngest only runs on the ingest threads
+            int minSectionY = level.getMinSection();
+            VoxyIngestPipeline.Snapshot snapshot = ingest.open(worldId, pos.x, pos.z);
             for (int i = 0; i < sections.length; i++) {
                 LevelChunkSection section = sections[i];
-                if (section != null && !section.hasOnlyAir()) {
-                    section.recalcBlockCounts();
-                    int sectionY = minSectionY + i;
-                    VoxyIntegration.rawIngest(level, section, pos.x, sectionY, pos.z, FULL_LIGHT);
+                if (section != null) {
+                    snapshot.add(minSectionY + i, section, null, FULL_LIGHT);
                 }
             }
-
-            VoxyWorldGenV2.LOGGER.info("ingested tellus chunk for {}", pos);
+            return ingest.submit(snapshot);
         } catch (Throwable e) {
             VoxyWorldGenV2.LOGGER.error("failed to build tellus chunk for {}", pos, e);
-        }
-    }
-
-    public static void generateTellusChunkFast(ServerLevel level, ChunkPos pos) {
-        TellusChunkData data = sampleData(level, pos);
-        if (data != null) {
-            generateFromHeights(level, pos, data);
+            return false;
         }
     }
 }
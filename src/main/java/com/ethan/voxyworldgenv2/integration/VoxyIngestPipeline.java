@@ -0,0 +1,221 @@
+package com.ethan.voxyworldgenv2.integration;
+
+import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import com.ethan.voxyworldgenv2.stats.GenerationStats;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * bounded voxy ingestion off the server thread
+ * the main thread only copies the non-empty sections and their light, a dedicated
+ * executor feeds the copies to voxy's rawIngest. generation backs off while the
+ * queue is close to full, chunks that still do not fit are handed to voxy's own ingest path.
+ * sections built off the server thread are submitted here too, so rawIngest is only ever
+ * called from the ingest threads
+ */
+public final class VoxyIngestPipeline {
+    private static final int POOL_SIZE = 64;
+    private static final DataLayer FULL_LIGHT = new DataLayer(15);
+
+    private final GenerationStats stats;
+    private final Queue<Snapshot> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final AtomicInteger depth = new AtomicInteger(0);
+    private ThreadPoolExecutor executor;
+    private int capacity;
+
+    // reused between chunks, owned by one thread until submitted and immutable afterwards
+    public static final class Snapshot {
+        private Object worldId;
+        private int cx;
+        private int cz;
+        private int count;
+        private int[] sectionY = new int[0];
+        private LevelChunkSection[] sections = new LevelChunkSection[0];
+        private DataLayer[] blockLight = new DataLayer[0];
+        private DataLayer[] skyLight = new DataLayer[0];
+        private long createdAt;
+
+        // the section must not be modified afterwards, null light is left to voxy
+        public void add(int y, LevelChunkSection section, DataLayer block, DataLayer sky) {
+            ensureCapacity(count + 1);
+            sectionY[count] = y;
+            sections[count] = section;
+            blockLight[count] = block;
+            skyLight[count] = sky;
+            count++;
+        }
+
+        private void ensureCapacity(int size) {
+            if (sections.length >= size) return;
+            int grown = Math.max(size, sections.length * 2);
+            sectionY = Arrays.copyOf(sectionY, grown);
+            sections = Arrays.copyOf(sections, grown);
+            blockLight = Arrays.copyOf(blockLight, grown);
+            skyLight = Arrays.copyOf(skyLight, grown);
+        }
+
+        void clear() {
+            worldId = null;
+            for (int i = 0; i < count; i++) {
+                sections[i] = null;
+                blockLight[i] = null;
+                skyLight[i] = null;
+            }
+            count = 0;
+        }
+    }
+
+    public VoxyIngestPipeline(GenerationStats stats) {
+        this.stats = stats;
+    }
+
+    public synchronized void start(int threads, int capacity) {
+        if (executor != null) return;
+        this.capacity = Math.max(1, capacity);
+        AtomicInteger index = new AtomicInteger(0);
+        int count = Math.max(1, threads);
+        executor = new ThreadPoolExecutor(count, count, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(this.capacity), r -> {
+            Thread thread = new Thread(r, "Voxy-WorldGen-Ingest-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized void stop() {
+        if (executor == null) return;
+        executor.shutdown();
+        try {
+            // whatever voxy accepted before shutdown should still make it in
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        depth.set(0);
+        pool.clear();
+    }
+
+    // main thread only, proto chunks are only supported through rawIngest.
+    // false if the chunk never reached voxy, the caller must not count it as generated
+    public boolean ingest(ServerLevel level, ChunkAccess chunk) {
+        ThreadPoolExecutor current = executor;
+        Object worldId = current != null && VoxyIntegration.isRawIngestAvailable() ? VoxyIntegration.getWorldIdentifier(level) : null;
+        if (worldId != null && submit(capture(level, chunk, worldId))) return true;
+        if (chunk instanceof LevelChunk levelChunk) {
+            VoxyIntegration.ingestChunk(levelChunk);
+            return true;
+        }
+        return false;
+    }
+
+    // any thread, an empty snapshot for one chunk column
+    public Snapshot open(Object worldId, int cx, int cz) {
+        Snapshot snapshot = pool.poll();
+        if (snapshot == null) snapshot = new Snapshot();
+        snapshot.worldId = worldId;
+        snapshot.cx = cx;
+        snapshot.cz = cz;
+        snapshot.createdAt = System.nanoTime();
+        return snapshot;
+    }
+
+    // any thread, false if the snapshot was not queued. it belongs to the pipeline either way
+    public boolean submit(Snapshot snapshot) {
+        ThreadPoolExecutor current = executor;
+        if (snapshot.count == 0 || current == null) {
+            boolean empty = snapshot.count == 0;
+            release(snapshot);
+            return empty;
+        }
+
+        depth.incrementAndGet();
+        try {
+            current.execute(() -> process(snapshot));
+            return true;
+        } catch (RejectedExecutionException e) {
+            depth.decrementAndGet();
+            release(snapshot);
+            stats.incrementIngestDropped();
+            return false;
+        }
+    }
+
+    // for a snapshot that will not be submitted
+    public void discard(Snapshot snapshot) {
+        release(snapshot);
+    }
+
+    private Snapshot capture(ServerLevel level, ChunkAccess chunk, Object worldId) {
+        Snapshot snapshot = open(worldId, chunk.getPos().x, chunk.getPos().z);
+        LevelChunkSection[] sections = chunk.getSections();
+        snapshot.ensureCapacity(sections.length);
+
+        LevelLightEngine light = level.getLightEngine();
+        // proto chunks from the lod tiers are not lit yet
+        boolean lit = chunk instanceof LevelChunk;
+        int minSection = chunk.getMinSection();
+        for (int i = 0; i < sections.length; i++) {
+            LevelChunkSection section = sections[i];
+            if (section == null || section.hasOnlyAir()) continue;
+
+            int sy = minSection + i;
+            SectionPos sectionPos = SectionPos.of(snapshot.cx, sy, snapshot.cz);
+            DataLayer block = light.getLayerListener(LightLayer.BLOCK).getDataLayerData(sectionPos);
+            DataLayer sky = light.getLayerListener(LightLayer.SKY).getDataLayerData(sectionPos);
+
+            snapshot.add(sy, section.copy(), block != null ? block.copy() : null, sky != null ? sky.copy() : (lit ? null : FULL_LIGHT));
+        }
+        return snapshot;
+    }
+
+    private void process(Snapshot snapshot) {
+        try {
+            for (int i = 0; i < snapshot.count; i++) {
+                VoxyIntegration.rawIngest(snapshot.worldId, snapshot.sections[i], snapshot.cx, snapshot.sectionY[i], snapshot.cz, snapshot.blockLight[i], snapshot.skyLight[i]);
+            }
+            stats.recordIngestLatency(System.nanoTime() - snapshot.createdAt);
+        } catch (Throwable e) {
+            stats.incrementIngestDropped();
+            VoxyWorldGenV2.LOGGER.error("failed to raw ingest chunk {}, {}", snapshot.cx, snapshot.cz, e);
+        } finally {
+            depth.decrementAndGet();
+            release(snapshot);
+        }
+    }
+
+    private void release(Snapshot snapshot) {
+        snapshot.clear();
+        pool.offer(snapshot);
+    }
+
+    // generation should wait while this is true, small capacities still allow one snapshot
+    public boolean isBacklogged() {
+        return executor != null && depth.get() >= Math.max(1, capacity * 3 / 4);
+    }
+
+    // every dispatch in flight may still produce a snapshot, one more only fits if all of them do
+    public boolean hasRoomFor(int inFlight) {
+        return executor == null || depth.get() + inFlight < capacity;
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+}
@@ -10,7 +10,8 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
 public final class VoxyIntegration {
-    private static boolean initialized = false;
+    // written last, a thread that sees it set also sees every handle
+    private static volatile boolean initialized = false;
     private static boolean enabled = false;
     private static MethodHandle ingestMethod;
     private static MethodHandle rawIngestMethod;
@@ -18,9 +19,8 @@ public final class VoxyIntegration {
 
     private VoxyIntegration() {}
 
-    private static void initialize() {
+    private static synchronized void initialize() {
         if (initialized) return;
-        initialized = true;
 
         try {
             Class<?> ingestServiceClass = Class.forName("me.cortex.voxy.common.world.service.VoxelIngestService");
@@ -79,6 +79,7 @@ public final class VoxyIntegration {
             VoxyWorldGenV2.LOGGER.error("failed to initialize voxy integration", e);
             enabled = false;
         }
+        initialized = true;
     }
 
     public static void ingestChunk(LevelChunk chunk) {
@@ -132,6 +133,26 @@ public final class VoxyIntegration {
         }
     }
 
+    public static boolean isRawIngestAvailable() {
+        if (!initialized) initialize();
+        return rawIngestMethod != null && worldIdentifierOfMethod != null;
+    }
+
+    // resolved once per chunk on the main thread, the result is passed to rawIngest below
+    public static Object getWorldIdentifier(net.minecraft.world.level.Level level) {
+        if (!isRawIngestAvailable()) return null;
+        try {
+            return worldIdentifierOfMethod.invoke(level);
+        } catch (Throwable e) {
+            VoxyWorldGenV2.LOGGER.error("failed to resolve voxy world identifier", e);
+            return null;
+        }
+    }
+
+    public static void rawIngest(Object worldId, net.minecraft.world.level.chunk.LevelChunkSection section, int cx, int cy, int cz, net.minecraft.world.level.chunk.DataLayer blockLight, net.minecraft.world.level.chunk.DataLayer skyLight) throws Throwable {
+        rawIngestMethod.invoke(worldId, section, cx, cy, cz, blockLight, skyLight);
+    }
+
     public static boolean isVoxyAvailable() {
         if (!initialized) initialize();
         return enabled;
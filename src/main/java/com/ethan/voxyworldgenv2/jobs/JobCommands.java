@@ -0,0 +1,175 @@
+package com.ethan.voxyworldgenv2.jobs;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.commands.arguments.coordinates.ColumnPosArgument;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ColumnPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.border.WorldBorder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * /voxyworldgen job add|list|pause|resume|priority|remove
+ * areas are added in the dimension of the command source, use execute in for others
+ */
+public final class JobCommands {
+    private JobCommands() {}
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("voxyworldgen")
+            .requires(source -> source.hasPermission(2))
+            .then(Commands.literal("job")
+                .then(Commands.literal("add")
+                    .then(area("square", PregenJob.Shape.SQUARE))
+                    .then(area("circle", PregenJob.Shape.CIRCLE))
+                    .then(Commands.literal("worldborder")
+                        .executes(JobCommands::addWorldBorder))
+                    .then(Commands.literal("points")
+                        .then(Commands.argument("radius", IntegerArgumentType.integer(0, JobManager.MAX_RADIUS))
+                            .then(Commands.argument("points", StringArgumentType.greedyString())
+                                .executes(JobCommands::addPoints)))))
+                .then(Commands.literal("list")
+                    .executes(JobCommands::list))
+                .then(Commands.literal("pause")
+                    .then(Commands.argument("id", IntegerArgumentType.integer(1))
+                        .executes(ctx -> setPaused(ctx, true))))
+                .then(Commands.literal("resume")
+                    .then(Commands.argument("id", IntegerArgumentType.integer(1))
+                        .executes(ctx -> setPaused(ctx, false))))
+                .then(Commands.literal("priority")
+                    .then(Commands.argument("id", IntegerArgumentType.integer(1))
+                        .then(Commands.argument("priority", IntegerArgumentType.integer(1, 100))
+                            .executes(JobCommands::setPriority))))
+                .then(Commands.literal("remove")
+                    .then(Commands.argument("id", IntegerArgumentType.integer(1))
+                        .executes(JobCommands::remove)))));
+    }
+
+    // <radius> [center], centered on the source position when no center is given
+    private static LiteralArgumentBuilder<CommandSourceStack> area(String name, PregenJob.Shape shape) {
+        return Commands.literal(name)
+            .then(Commands.argument("radius", IntegerArgumentType.integer(1, JobManager.MAX_RADIUS))
+                .executes(ctx -> {
+                    var pos = ctx.getSource().getPosition();
+                    return addArea(ctx, shape, (int) Math.floor(pos.x) >> 4, (int) Math.floor(pos.z) >> 4);
+                })
+                .then(Commands.argument("center", ColumnPosArgument.columnPos())
+                    .executes(ctx -> {
+                        ColumnPos center = ColumnPosArgument.getColumnPos(ctx, "center");
+                        return addArea(ctx, shape, center.x() >> 4, center.z() >> 4);
+                    })));
+    }
+
+    private static int addArea(CommandContext<CommandSourceStack> ctx, PregenJob.Shape shape, int chunkX, int chunkZ) {
+        int radius = IntegerArgumentType.getInteger(ctx, "radius");
+        ServerLevel level = ctx.getSource().getLevel();
+        PregenJob job = JobManager.getInstance().add(level.dimension(), shape, chunkX, chunkZ, radius, null, 1);
+        return added(ctx, job);
+    }
+
+    private static int addWorldBorder(CommandContext<CommandSourceStack> ctx) {
+        ServerLevel level = ctx.getSource().getLevel();
+        WorldBorder border = level.getWorldBorder();
+        int radius = (int) Math.ceil(border.getSize() / 2.0 / 16.0);
+        if (radius > JobManager.MAX_RADIUS) {
+            ctx.getSource().sendFailure(Component.literal("world border is too large (" + radius + " chunks, max " + JobManager.MAX_RADIUS + "), shrink it with /worldborder first"));
+            return 0;
+        }
+        int chunkX = (int) Math.floor(border.getCenterX()) >> 4;
+        int chunkZ = (int) Math.floor(border.getCenterZ()) >> 4;
+        PregenJob job = JobManager.getInstance().add(level.dimension(), PregenJob.Shape.WORLDBORDER, chunkX, chunkZ, radius, null, 1);
+        return added(ctx, job);
+    }
+
+    // points are block coordinates, "x,z x,z ..."
+    private static int addPoints(CommandContext<CommandSourceStack> ctx) {
+        int radius = IntegerArgumentType.getInteger(ctx, "radius");
+        List<PregenJob.Point> points = new ArrayList<>();
+        for (String token : StringArgumentType.getString(ctx, "points").trim().split("\\s+")) {
+            String[] parts = token.split(",");
+            try {
+                if (parts.length != 2) throw new NumberFormatException(token);
+                points.add(new PregenJob.Point(Integer.parseInt(parts[0].trim()) >> 4, Integer.parseInt(parts[1].trim()) >> 4));
+            } catch (NumberFormatException e) {
+                ctx.getSource().sendFailure(Component.literal("invalid point '" + token + "', expected x,z"));
+                return 0;
+            }
+        }
+        if (points.isEmpty()) {
+            ctx.getSource().sendFailure(Component.literal("no points given"));
+            return 0;
+        }
+        PregenJob job = JobManager.getInstance().add(ctx.getSource().getLevel().dimension(), PregenJob.Shape.POINTS, 0, 0, radius, points, 1);
+        return added(ctx, job);
+    }
+
+    private static int added(CommandContext<CommandSourceStack> ctx, PregenJob job) {
+        ctx.getSource().sendSuccess(() -> Component.literal("added pregeneration job #" + job.id() + ": " + job.describe()), true);
+        return job.id();
+    }
+
+    private static int list(CommandContext<CommandSourceStack> ctx) {
+        List<PregenJob> jobs = JobManager.getInstance().getJobs();
+        if (jobs.isEmpty()) {
+            ctx.getSource().sendSuccess(() -> Component.literal("no pregeneration jobs"), false);
+            return 0;
+        }
+        for (PregenJob job : jobs) {
+            String progress = job.missing() < 0 && job.state() != PregenJob.State.DONE
+                ? "counting"
+                : String.format("%.1f%% (%d left, %s)", job.progress() * 100, Math.max(0, job.missing()), formatEta(job.etaSeconds()))
+                    + (job.quarantined() > 0 ? ", " + job.quarantined() + " quarantined" : "");
+            String line = "#" + job.id() + " [" + job.state().name().toLowerCase() + ", priority " + job.priority() + "] "
+                + job.describe() + ": " + progress;
+            ctx.getSource().sendSuccess(() -> Component.literal(line), false);
+        }
+        return jobs.size();
+    }
+
+    private static int setPaused(CommandContext<CommandSourceStack> ctx, boolean paused) {
+        int id = IntegerArgumentType.getInteger(ctx, "id");
+        if (!JobManager.getInstance().setPaused(id, paused)) {
+            ctx.getSource().sendFailure(Component.literal("no unfinished job #" + id));
+            return 0;
+        }
+        ctx.getSource().sendSuccess(() -> Component.literal((paused ? "paused" : "resumed") + " job #" + id), true);
+        return 1;
+    }
+
+    private static int setPriority(CommandContext<CommandSourceStack> ctx) {
+        int id = IntegerArgumentType.getInteger(ctx, "id");
+        int priority = IntegerArgumentType.getInteger(ctx, "priority");
+        if (!JobManager.getInstance().setPriority(id, priority)) {
+            ctx.getSource().sendFailure(Component.literal("no job #" + id));
+            return 0;
+        }
+        ctx.getSource().sendSuccess(() -> Component.literal("job #" + id + " priority set to " + priority), true);
+        return 1;
+    }
+
+    private static int remove(CommandContext<CommandSourceStack> ctx) {
+        int id = IntegerArgumentType.getInteger(ctx, "id");
+        if (!JobManager.getInstance().remove(id)) {
+            ctx.getSource().sendFailure(Component.literal("no job #" + id));
+            return 0;
+        }
+        ctx.getSource().sendSuccess(() -> Component.literal("removed job #" + id), true);
+        return 1;
+    }
+
+    private static String formatEta(long seconds) {
+        if (seconds < 0) return "eta unknown";
+        if (seconds == 0) return "done";
+        if (seconds < 60) return "eta " + seconds + "s";
+        if (seconds < 3600) return "eta " + (seconds / 60) + "m " + (seconds % 60) + "s";
+        return "eta " + (seconds / 3600) + "h " + ((seconds % 3600) / 60) + "m";
+    }
+}
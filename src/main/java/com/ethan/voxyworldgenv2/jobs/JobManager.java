@@ -0,0 +1,198 @@
+package com.ethan.voxyworldgenv2.jobs;
+
+import com.ethan.voxyworldgenv2.VoxyWorldGenV2;
+import com.ethan.voxyworldgenv2.core.FairShareScheduler;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * persistent queue of pregeneration jobs
+ * running jobs become extra frontiers of their dimension, see DimensionContext.restartScan
+ */
+public final class JobManager {
+    private static final JobManager INSTANCE = new JobManager();
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    // keeps square counts inside an int
+    public static final int MAX_RADIUS = 20000;
+
+    private final List<PregenJob> jobs = new ArrayList<>();
+    private final AtomicInteger version = new AtomicInteger(0);
+    private Path file;
+    private int nextId = 1;
+
+    private JobManager() {}
+
+    public static JobManager getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void load(MinecraftServer server) {
+        jobs.clear();
+        nextId = 1;
+        file = server.getWorldPath(LevelResource.ROOT).resolve("voxy_gen_jobs.json");
+        if (Files.exists(file)) {
+            try (var reader = Files.newBufferedReader(file)) {
+                List<PregenJob> loaded = GSON.fromJson(reader, new TypeToken<List<PregenJob>>() {}.getType());
+                if (loaded != null) {
+                    for (PregenJob job : loaded) {
+                        if (job == null || job.shape == null || job.dimension == null) continue;
+                        jobs.add(job);
+                        nextId = Math.max(nextId, job.id + 1);
+                    }
+                }
+                VoxyWorldGenV2.LOGGER.info("loaded {} pregeneration jobs", jobs.size());
+            } catch (IOException | JsonParseException e) {
+                VoxyWorldGenV2.LOGGER.error("failed to load pregeneration jobs", e);
+            }
+        }
+        version.incrementAndGet();
+    }
+
+    public synchronized void unload() {
+        save();
+        jobs.clear();
+        file = null;
+        version.incrementAndGet();
+    }
+
+    public synchronized PregenJob add(ResourceKey<Level> dimension, PregenJob.Shape shape, int centerX, int centerZ, int radius, List<PregenJob.Point> points, int priority) {
+        PregenJob job = new PregenJob(nextId++, dimension, shape, centerX, centerZ, radius, points, priority);
+        jobs.add(job);
+        changed();
+        return job;
+    }
+
+    public synchronized boolean setPaused(int id, boolean paused) {
+        PregenJob job = find(id);
+        if (job == null || job.done) return false;
+        job.paused = paused;
+        changed();
+        return true;
+    }
+
+    public synchronized boolean setPriority(int id, int priority) {
+        PregenJob job = find(id);
+        if (job == null) return false;
+        job.priority = priority;
+        changed();
+        return true;
+    }
+
+    public synchronized boolean remove(int id) {
+        PregenJob job = find(id);
+        if (job == null) return false;
+        jobs.remove(job);
+        changed();
+        return true;
+    }
+
+    public synchronized List<PregenJob> getJobs() {
+        return List.copyOf(jobs);
+    }
+
+    // bumped whenever the set of running areas changes
+    public int getVersion() {
+        return version.get();
+    }
+
+    public synchronized Set<ResourceKey<Level>> getActiveDimensions() {
+        Set<ResourceKey<Level>> dimensions = new LinkedHashSet<>();
+        for (PregenJob job : jobs) {
+            if (job.state() == PregenJob.State.RUNNING) dimensions.add(job.dimensionKey());
+        }
+        return dimensions;
+    }
+
+    public synchronized List<FairShareScheduler.Area> getAreas(ResourceKey<Level> dimension) {
+        List<FairShareScheduler.Area> areas = new ArrayList<>();
+        for (PregenJob job : jobs) {
+            if (job.state() == PregenJob.State.RUNNING && job.dimensionKey().equals(dimension)) {
+                areas.addAll(job.areas());
+            }
+        }
+        return areas;
+    }
+
+    /**
+     * recount the missing chunks of every running job, counter returns -1 if the dimension is not loaded.
+     * quarantined chunks are not missing, they are counted on their own. finished jobs drop out of the frontiers
+     */
+    public synchronized void refreshProgress(ToLongBiFunction<ResourceKey<Level>, FairShareScheduler.Area> counter,
+                                             ToLongBiFunction<ResourceKey<Level>, FairShareScheduler.Area> quarantinedCounter) {
+        boolean finished = false;
+        long now = System.currentTimeMillis();
+        for (PregenJob job : jobs) {
+            if (job.state() != PregenJob.State.RUNNING) continue;
+
+            long missing = 0;
+            long quarantined = 0;
+            for (FairShareScheduler.Area area : job.areas()) {
+                long count = counter.applyAsLong(job.dimensionKey(), area);
+                if (count < 0) {
+                    missing = -1;
+                    break;
+                }
+                missing += count;
+                quarantined += quarantinedCounter.applyAsLong(job.dimensionKey(), area);
+            }
+            if (missing < 0) continue;
+            job.quarantined = quarantined;
+
+            if (job.total < 0) job.total = missing;
+            if (job.missing >= 0 && job.lastSampleMillis > 0 && now > job.lastSampleMillis) {
+                double rate = Math.max(0, job.missing - missing) * 1000.0 / (now - job.lastSampleMillis);
+                job.chunksPerSecond = job.chunksPerSecond == 0 ? rate : job.chunksPerSecond * 0.7 + rate * 0.3;
+            }
+            job.missing = missing;
+            job.lastSampleMillis = now;
+
+            if (missing == 0) {
+                job.done = true;
+                finished = true;
+                VoxyWorldGenV2.LOGGER.info("pregeneration job #{} finished: {}", job.id, job.describe());
+            }
+        }
+        if (finished) changed();
+    }
+
+    private PregenJob find(int id) {
+        for (PregenJob job : jobs) {
+            if (job.id == id) return job;
+        }
+        return null;
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        save();
+    }
+
+    // written to a temp file and renamed so a crash never leaves a torn queue
+    private void save() {
+        if (file == null) return;
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, GSON.toJson(jobs));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            VoxyWorldGenV2.LOGGER.error("failed to save pregeneration jobs", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ethan.voxyworldgenv2.jobs;
+
+import com.ethan.voxyworldgenv2.core.FairShareScheduler;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * a bounded area to pregenerate in one dimension, stored as json with the world
+ * world border jobs are resolved to a square when they are created
+ */
+public final class PregenJob {
+    public enum Shape { SQUARE, CIRCLE, WORLDBORDER, POINTS }
+
+    public enum State { RUNNING, PAUSED, DONE }
+
+    public static final class Point {
+        public int x, z; // chunk coords
+
+        public Point(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+    }
+
+    int id;
+    String dimension;
+    Shape shape;
+    int centerX, centerZ; // chunk coords
+    int radius;           // chunks, half side for squares
+    List<Point> points = new ArrayList<>();
+    int priority = 1;
+    boolean paused = false;
+    boolean done = false;
+    long total = -1;      // missing chunks when first counted
+    long missing = -1;
+    long createdAt;
+
+    // progress sampling, not saved
+    transient long lastSampleMillis = 0;
+    transient double chunksPerSecond = 0;
+    transient long quarantined = 0;
+
+    PregenJob() {}
+
+    PregenJob(int id, ResourceKey<Level> dimension, Shape shape, int centerX, int centerZ, int radius, List<Point> points, int priority) {
+        this.id = id;
+        this.dimension = dimension.location().toString();
+        this.shape = shape;
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.radius = radius;
+        if (points != null) this.points = new ArrayList<>(points);
+        this.priority = priority;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public int id() { return id; }
+    public Shape shape() { return shape; }
+    public int radius() { return radius; }
+    public int priority() { return priority; }
+    public long total() { return total; }
+    public long missing() { return missing; }
+    public double chunksPerSecond() { return chunksPerSecond; }
+    public long quarantined() { return quarantined; }
+
+    public ResourceKey<Level> dimensionKey() {
+        return ResourceKey.create(Registries.DIMENSION, ResourceLocation.parse(dimension));
+    }
+
+    public State state() {
+        if (done) return State.DONE;
+        return paused ? State.PAUSED : State.RUNNING;
+    }
+
+    // 0..1, unknown until the job was counted once
+    public double progress() {
+        if (done) return 1.0;
+        if (total <= 0 || missing < 0) return 0.0;
+        return (total - missing) / (double) total;
+    }
+
+    // seconds left at the current rate, -1 if unknown
+    public long etaSeconds() {
+        if (done) return 0;
+        if (missing < 0 || chunksPerSecond <= 0) return -1;
+        return (long) (missing / chunksPerSecond);
+    }
+
+    List<FairShareScheduler.Area> areas() {
+        List<FairShareScheduler.Area> areas = new ArrayList<>();
+        switch (shape) {
+            case SQUARE, WORLDBORDER -> areas.add(new FairShareScheduler.Area(new ChunkPos(centerX, centerZ), radius, true, priority));
+            case CIRCLE -> areas.add(new FairShareScheduler.Area(new ChunkPos(centerX, centerZ), radius, false, priority));
+            case POINTS -> {
+                for (Point point : points) {
+                    areas.add(new FairShareScheduler.Area(new ChunkPos(point.x, point.z), radius, false, priority));
+                }
+            }
+        }
+        return areas;
+    }
+
+    public String describe() {
+        String where = switch (shape) {
+            case POINTS -> points.size() + " points, radius " + radius;
+            default -> "radius " + radius + " at " + centerX + ", " + centerZ;
+        };
+        return shape.name().toLowerCase() + " in " + dimension + " (" + where + ")";
+    }
+}
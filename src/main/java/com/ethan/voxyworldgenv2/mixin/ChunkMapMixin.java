@@ -1,6 +1,7 @@
 package com.ethan.voxyworldgenv2.mixin;
 
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ChunkHolder;
 import net.minecraft.server.level.ChunkMap;
 import net.minecraft.world.level.ChunkPos;
 import org.spongepowered.asm.mixin.Mixin;
@@ -17,4 +18,7 @@ public interface ChunkMapMixin {
 
     @Invoker("readChunk")
     CompletableFuture<Optional<CompoundTag>> invokeReadChunk(ChunkPos pos);
+
+    @Invoker("getVisibleChunkIfPresent")
+    ChunkHolder invokeGetVisibleChunkIfPresent(long pos);
 }
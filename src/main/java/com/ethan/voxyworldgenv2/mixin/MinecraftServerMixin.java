@@ -1,5 +1,6 @@
 package com.ethan.voxyworldgenv2.mixin;
 
+import com.ethan.voxyworldgenv2.core.ChunkGenerationManager;
 import com.ethan.voxyworldgenv2.core.MinecraftServerExtension;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
@@ -25,6 +26,7 @@ public abstract class MinecraftServerMixin implements MinecraftServerExtension {
     // 1.21.1: MinecraftServer has tickWorlds(BooleanSupplier)
     @Inject(method = "tickChildren(Ljava/util/function/BooleanSupplier;)V", at = @At("TAIL"))
     private void voxyworldgen$onTickWorlds(BooleanSupplier shouldKeepTicking, CallbackInfo ci) {
+        ChunkGenerationManager.getInstance().drainMainThread();
         this.voxyworldgen$runHousekeeping(shouldKeepTicking);
     }
 
@@ -1,10 +1,12 @@
 package com.ethan.voxyworldgenv2.mixin;
 
 import net.minecraft.server.level.ChunkResult;
+import net.minecraft.server.level.DistanceManager;
 import net.minecraft.server.level.ServerChunkCache;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.status.ChunkStatus;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
 import org.spongepowered.asm.mixin.gen.Invoker;
 
 import java.util.concurrent.CompletableFuture;
@@ -16,4 +18,7 @@ public interface ServerChunkCacheMixin {
 
     @Invoker
     boolean invokeRunDistanceManagerUpdates();
+
+    @Accessor("distanceManager")
+    DistanceManager getDistanceManager();
 }
@@ -1,5 +1,8 @@
 package com.ethan.voxyworldgenv2.stats;
 
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.world.level.ChunkPos;
+
 import java.util.concurrent.atomic.AtomicLong;
 
 public class GenerationStats {
@@ -7,6 +10,30 @@ public class GenerationStats {
     private final AtomicLong chunksCompleted = new AtomicLong(0);
     private final AtomicLong chunksFailed = new AtomicLong(0);
     private final AtomicLong chunksSkipped = new AtomicLong(0);
+    // failures of chunks that had already failed before, permits spent for nothing
+    private final AtomicLong wastedDispatches = new AtomicLong(0);
+    // chunks handed out while backing off or quarantined, they were left alone
+    private final AtomicLong chunksDeferred = new AtomicLong(0);
+    private volatile int quarantined = 0;
+    private final AtomicLong timedOut = new AtomicLong(0);
+    private volatile long oldestInFlightMs = 0;
+    private volatile int loadedChunks = 0;
+    private volatile int concurrencyLimit = 0;
+    
+    // voxy ingest pipeline
+    private final AtomicLong ingestDropped = new AtomicLong(0);
+    private final AtomicLong diskIngested = new AtomicLong(0);
+    
+    // chunks that were already generated when they came into view distance
+    private final AtomicLong prefetchHits = new AtomicLong(0);
+    private final AtomicLong prefetchMisses = new AtomicLong(0);
+    private volatile int ingestQueueDepth = 0;
+    private double ingestLatencyMs = 0;
+    
+    // distinct region files the chunk system was sent to, per minute
+    private final LongOpenHashSet regionsThisMinute = new LongOpenHashSet();
+    private int regionsLastMinute = 0;
+    private long regionWindowStart = 0;
     
     // rolling average over 10s
     private final long[] rollingHistory = new long[10];
@@ -18,11 +45,60 @@ public class GenerationStats {
     public void incrementCompleted() { chunksCompleted.incrementAndGet(); }
     public void incrementFailed() { chunksFailed.incrementAndGet(); }
     public void incrementSkipped() { chunksSkipped.incrementAndGet(); }
+    public void incrementWastedDispatches() { wastedDispatches.incrementAndGet(); }
+    public void incrementDeferred() { chunksDeferred.incrementAndGet(); }
+    public void setQuarantined(int count) { quarantined = count; }
+    public void incrementTimedOut() { timedOut.incrementAndGet(); }
+    public void setOldestInFlightMs(long ms) { oldestInFlightMs = ms; }
+    public void setLoadedChunks(int count) { loadedChunks = count; }
+    public void setConcurrencyLimit(int limit) { concurrencyLimit = limit; }
+    public void incrementIngestDropped() { ingestDropped.incrementAndGet(); }
+    public void setIngestQueueDepth(int depth) { ingestQueueDepth = depth; }
+    public void addDiskIngested(long count) { diskIngested.addAndGet(count); }
+    public void addPrefetchSamples(long hits, long misses) {
+        prefetchHits.addAndGet(hits);
+        prefetchMisses.addAndGet(misses);
+    }
     
     public long getQueued() { return chunksQueued.get(); }
     public long getCompleted() { return chunksCompleted.get(); }
     public long getFailed() { return chunksFailed.get(); }
     public long getSkipped() { return chunksSkipped.get(); }
+    public long getWastedDispatches() { return wastedDispatches.get(); }
+    public long getDeferred() { return chunksDeferred.get(); }
+    public int getQuarantined() { return quarantined; }
+    public long getTimedOut() { return timedOut.get(); }
+    // age of the oldest chunk still waiting on the chunk system, climbs steadily when generation stalls
+    public long getOldestInFlightMs() { return oldestInFlightMs; }
+    // chunks held by the chunk map in every dimension, players included
+    public int getLoadedChunks() { return loadedChunks; }
+    public int getConcurrencyLimit() { return concurrencyLimit; }
+    public long getIngestDropped() { return ingestDropped.get(); }
+    public int getIngestQueueDepth() { return ingestQueueDepth; }
+    public long getDiskIngested() { return diskIngested.get(); }
+    
+    // -1 until a chunk came into view
+    public double getPrefetchHitRate() {
+        long hits = prefetchHits.get();
+        long total = hits + prefetchMisses.get();
+        return total == 0 ? -1 : hits / (double) total;
+    }
+    
+    // exponential moving average of snapshot to ingested time
+    public synchronized void recordIngestLatency(long nanos) {
+        double ms = nanos / 1_000_000.0;
+        ingestLatencyMs = ingestLatencyMs == 0 ? ms : ingestLatencyMs * 0.95 + ms * 0.05;
+    }
+    
+    public synchronized double getIngestLatencyMs() { return ingestLatencyMs; }
+    
+    public synchronized void recordRegionTouched(ChunkPos pos) {
+        regionsThisMinute.add(ChunkPos.asLong(pos.getRegionX(), pos.getRegionZ()));
+    }
+    
+    public synchronized int getRegionsPerMinute() {
+        return Math.max(regionsLastMinute, regionsThisMinute.size());
+    }
     
     // update rolling average, call every tick
     public synchronized void tick() {
@@ -38,6 +114,11 @@ public class GenerationStats {
             lastCompletedCount = currentTotal;
             lastTickTime = now;
         }
+        if (now - regionWindowStart >= 60_000) {
+            regionsLastMinute = regionsThisMinute.size();
+            regionsThisMinute.clear();
+            regionWindowStart = now;
+        }
     }
 
     public synchronized double getChunksPerSecond() {
@@ -53,10 +134,25 @@ public class GenerationStats {
         chunksCompleted.set(0);
         chunksFailed.set(0);
         chunksSkipped.set(0);
+        wastedDispatches.set(0);
+        chunksDeferred.set(0);
+        quarantined = 0;
+        timedOut.set(0);
+        oldestInFlightMs = 0;
+        loadedChunks = 0;
+        ingestDropped.set(0);
+        diskIngested.set(0);
+        prefetchHits.set(0);
+        prefetchMisses.set(0);
+        ingestQueueDepth = 0;
         synchronized (this) {
+            ingestLatencyMs = 0;
             for (int i = 0; i < rollingHistory.length; i++) rollingHistory[i] = 0;
             lastCompletedCount = 0;
             lastTickTime = System.currentTimeMillis();
+            regionsThisMinute.clear();
+            regionsLastMinute = 0;
+            regionWindowStart = lastTickTime;
         }
     }
 }
@@ -0,0 +1,103 @@
+package com.ethan.voxyworldgenv2.core;
+
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * marks overlapping chunk sets from several threads at once and checks that no bit and no
+ * cached count is lost, including across full subtrees collapsing while others still mark them
+ */
+class DistanceGraphConcurrencyTest {
+    private static final int THREADS = 8;
+    // dense area, every chunk is marked by all threads but one so every node up to l2 collapses
+    private static final int DENSE_MIN = -512;
+    private static final int DENSE_MAX = 512;
+    // sparse area straddling a root border, half the chunks stay missing
+    private static final int SPARSE_MIN = 4096 - 160;
+    private static final int SPARSE_MAX = 4096 + 160;
+
+    @Test
+    void overlappingMarksKeepEveryBitAndCount() throws Exception {
+        for (int round = 0; round < 4; round++) {
+            DistanceGraph graph = new DistanceGraph();
+            mark(graph, round);
+
+            long expected = 0;
+            for (int x = DENSE_MIN; x < DENSE_MAX; x++) {
+                for (int z = DENSE_MIN; z < DENSE_MAX; z++) {
+                    assertTrue(graph.isChunkCompleted(x, z), "dense chunk " + x + "," + z + " lost");
+                    expected++;
+                }
+            }
+            for (int x = SPARSE_MIN; x < SPARSE_MAX; x++) {
+                for (int z = SPARSE_MIN; z < SPARSE_MAX; z++) {
+                    boolean marked = mix(x, z) % 4 < 2;
+                    assertEquals(marked, graph.isChunkCompleted(x, z), "sparse chunk " + x + "," + z);
+                    if (marked) expected++;
+                }
+            }
+
+            assertEquals(expected, graph.verifyCounts());
+            assertEquals(countOutside(DENSE_MAX), graph.countMissingInRange(new ChunkPos(0, 0), DENSE_MAX, true));
+        }
+    }
+
+    private static void mark(DistanceGraph graph, int round) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    // each thread walks in its own order so threads meet on the same words and nodes
+                    boolean reverse = ((thread + round) & 1) != 0;
+                    int width = DENSE_MAX - DENSE_MIN;
+                    for (int i = 0; i < width; i++) {
+                        int x = DENSE_MIN + (reverse ? width - 1 - i : i);
+                        for (int z = DENSE_MIN; z < DENSE_MAX; z++) {
+                            if (mix(x, z) % THREADS != thread) graph.markChunkCompleted(x, z);
+                        }
+                    }
+                    for (int x = SPARSE_MIN; x < SPARSE_MAX; x++) {
+                        for (int z = SPARSE_MIN; z < SPARSE_MAX; z++) {
+                            if (mix(x, z) % 4 == (thread & 1)) graph.markChunkCompleted(x, z);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // chunks the square shape counts beyond the dense area, its batch rounding adds a border
+    private static long countOutside(int radius) {
+        int rb = (radius + 3) >> 2;
+        long side = (2L * rb + 1) * 4;
+        return side * side - (long) (DENSE_MAX - DENSE_MIN) * (DENSE_MAX - DENSE_MIN);
+    }
+
+    private static int mix(int x, int z) {
+        int h = x * 0x9E3779B1 ^ z * 0x85EBCA6B;
+        h ^= h >>> 15;
+        return h & Integer.MAX_VALUE;
+    }
+}